@@ -7,7 +7,6 @@ public abstract class AbsGameBoard implements IGameBoard {
 
         // Variables
         String board = "| ";
-        BoardPosition pos;
         int endOfSingleDigitNumbers = 9;
 
         // For loop to create the top row with number labels
@@ -29,8 +28,7 @@ public abstract class AbsGameBoard implements IGameBoard {
             // For loop to add the tokens or blank spaces for each column
             for (int j = START; j < getNumColumns(); j++){
 
-                pos = new BoardPosition(i, j);
-                board += whatsAtPos(pos) + " |";
+                board += whatsAtPos(i, j) + " |";
 
             }
 
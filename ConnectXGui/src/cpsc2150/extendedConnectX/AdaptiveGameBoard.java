@@ -0,0 +1,176 @@
+package cpsc2150.extendedConnectX;
+
+public class AdaptiveGameBoard extends AbsGameBoard {
+
+    /**
+     * @invariant       MIN_NUM_MOVES <= numMoves <= (numRows * numColumns) AND
+     *                  switchMoves >= MIN_NUM_MOVES AND
+     *                  [board is a GameBoardMem until numMoves has reached switchMoves once,
+     *                  and a GameBoard from then on]
+     * Correspondence   self = board
+     *
+     * A sparse board takes less memory than a dense one while it is nearly empty, but each of
+     * its tokens costs several times the two bytes of a char [][] cell and every lookup
+     * probes a hash table. Once switchMoves tokens are placed the tokens are copied into a
+     * GameBoard and the game goes on there. It never switches back, so taking tokens off
+     * near the threshold during a search does not copy the board over and over.
+     */
+    private IGameBoard board;
+    private boolean dense;
+    private int numMoves;
+    private final int switchMoves;
+
+    /**
+     * Constructor for AdaptiveGameBoard
+     *
+     *
+     * @param switchMoves   the number of tokens at which the board turns dense.
+     * @post                board = [empty GameBoardMem of numRows x numColumns] AND
+     *                      numMoves = MIN_NUM_MOVES AND
+     *                      switchMoves = #switchMoves
+     */
+    public AdaptiveGameBoard(int numRows, int numColumns, int numToWin, int switchMoves){
+
+        board = new GameBoardMem(numRows, numColumns, numToWin);
+        numMoves = MIN_NUM_MOVES;
+        this.switchMoves = switchMoves;
+
+        if (switchMoves <= MIN_NUM_MOVES) makeDense();
+
+    }
+
+    /**
+     * Copy constructor for AdaptiveGameBoard
+     *
+     *
+     * @post    [this board has the same size, tokens, move count and representation as other]
+     */
+    private AdaptiveGameBoard(AdaptiveGameBoard other){
+
+        board = other.board.copy();
+        dense = other.dense;
+        numMoves = other.numMoves;
+        switchMoves = other.switchMoves;
+
+    }
+
+    public IGameBoard copy(){ return new AdaptiveGameBoard(this); }
+
+    /**
+     * @return      true once the board has switched to a GameBoard
+     */
+    public boolean isDense(){ return dense; }
+
+    public boolean checkForWin(int c){ return board.checkForWin(c); }
+
+    public void placeToken(char p, int c){
+
+        board.placeToken(p, c);
+
+        numMoves++;
+
+        if (!dense && numMoves >= switchMoves) makeDense();
+
+    }
+
+    public void removeToken(int c){
+
+        board.removeToken(c);
+
+        numMoves--;
+
+    }
+
+    public char whatsAtPos(BoardPosition pos){ return board.whatsAtPos(pos.getRow(), pos.getColumn()); }
+
+    @Override
+    public char whatsAtPos(int r, int c){ return board.whatsAtPos(r, c); }
+
+    @Override
+    public boolean isPlayerAtPos(int r, int c, char player){ return board.isPlayerAtPos(r, c, player); }
+
+    @Override
+    public boolean checkHorizWin(int r, int c, char p){ return board.checkHorizWin(r, c, p); }
+
+    @Override
+    public boolean checkVertWin(int r, int c, char p){ return board.checkVertWin(r, c, p); }
+
+    @Override
+    public boolean checkDiagWin(int r, int c, char p){ return board.checkDiagWin(r, c, p); }
+
+    @Override
+    public boolean checkIfFree(int c){ return board.checkIfFree(c); }
+
+    public boolean checkTie(){ return board.checkTie(); }
+
+    public int getNumRows(){ return board.getNumRows(); }
+
+    public int getNumColumns(){ return board.getNumColumns(); }
+
+    public int getNumToWin(){ return board.getNumToWin(); }
+
+    public int getColumnHeight(int c){ return board.getColumnHeight(c); }
+
+    public long getZobristHash(){ return board.getZobristHash(); }
+
+    public void undoLastMove(){
+
+        board.undoLastMove();
+
+        numMoves--;
+
+    }
+
+    public void redoMove(){
+
+        board.redoMove();
+
+        numMoves++;
+
+        if (!dense && numMoves >= switchMoves) makeDense();
+
+    }
+
+    public boolean canUndo(){ return board.canUndo(); }
+
+    public boolean canRedo(){ return board.canRedo(); }
+
+    /**
+     * Empties the inner board. A board that has switched to dense stays dense, since its
+     * memory is already allocated and the next game on the same size will likely need it.
+     */
+    public void clearBoard(){
+
+        board.clearBoard();
+
+        numMoves = MIN_NUM_MOVES;
+
+    }
+
+    public int getLineScore(char p){ return board.getLineScore(p); }
+
+    public int getOpenLines(char p, int count){ return board.getOpenLines(p, count); }
+
+    /**
+     * Plays every move of the sparse board, and every move it could redo, on a new GameBoard
+     * in the order they were placed, then takes the redo moves back again. The new board
+     * ends with the same tokens and the same history to undo and redo.
+     *
+     * @post    dense = true AND
+     *          board = [GameBoard with the same tokens and history as #board]
+     */
+    private void makeDense(){
+
+        MoveHistory history = ((GameBoardMem) board).history();
+        GameBoard denseBoard = new GameBoard(board.getNumRows(), board.getNumColumns(), board.getNumToWin());
+
+        for (int i = START; i < history.redoLimit(); i++) denseBoard.placeToken(history.token(i), history.column(i));
+
+        for (int i = history.size(); i < history.redoLimit(); i++) denseBoard.undoLastMove();
+
+        board = denseBoard;
+        dense = true;
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package cpsc2150.extendedConnectX;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that checkForWin and checkIfFree allocate nothing on GameBoard, GameBoardMem and
+ * GameBoardBit. Each board is filled part of the way with random moves, the two calls are
+ * run over every column until the JIT has compiled them, and then the thread's allocated
+ * byte counter is read around more passes over every column. Any byte allocated is a failure.
+ *
+ * The random playout of MonteCarloAI, which places and removes tokens until the game ends,
+ * is checked the same way from the same positions.
+ *
+ * Arguments are key=value pairs, all optional:  passes=N  seed=S
+ * Exits with status 1 if any call allocated, or if the JVM cannot count allocation.
+ */
+public class BoardAllocationCheck {
+
+    public static final int DEFAULT_PASSES = 50;
+    public static final long DEFAULT_SEED = 1;
+
+    // Passes run before measuring so that the JIT has compiled the calls
+    private static final int WARMUP_PASSES = 2000;
+    private static final int WARMUP_PLAYOUTS = 200;
+
+    // rows, columns, numToWin, players, and how full the board is in percent
+    private static final int [][] SHAPES = {
+            { 6, 7, 4, 2, 50 },
+            { 3, 3, 3, 2, 60 },
+            { 20, 20, 5, 4, 70 },
+            { 100, 100, 25, 2, 40 },
+            { 100, 100, 5, 10, 90 }
+    };
+
+    private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+
+    // Results are folded in here so the JIT cannot remove the measured calls
+    private static long sink;
+
+    private BoardAllocationCheck(){}
+
+    /**
+     * Runs checkIfFree and, on every column that has a token, checkForWin over every column of board.
+     */
+    private static void pass(IGameBoard board){
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (board.checkIfFree(c)) sink++;
+
+            if (board.getColumnHeight(c) > 0 && board.checkForWin(c)) sink++;
+
+        }
+
+    }
+
+    /**
+     * Fills board with random moves until it is fill percent full, without finishing the game.
+     */
+    private static void fill(IGameBoard board, int players, int fill, SplittableRandom random){
+
+        int cells = board.getNumRows() * board.getNumColumns();
+        int turn = IGameBoard.START;
+        int tries = 0;
+
+        for (int placed = 0; placed * 100 < cells * fill && tries < cells * 4; tries++){
+
+            int c = random.nextInt(board.getNumColumns());
+
+            if (!board.checkIfFree(c)) continue;
+
+            board.placeToken(ConnectXController.PLAYER_TOKENS[turn], c);
+
+            // A winning move is taken back so the board keeps filling
+            if (board.checkForWin(c)){
+
+                board.removeToken(c);
+                continue;
+
+            }
+
+            placed++;
+            turn = (turn + 1) % players;
+
+        }
+
+    }
+
+    /**
+     * Reading the counter can itself allocate, so what two reads with nothing between them
+     * allocate is taken off.
+     *
+     * @return      the bytes work allocated over passes runs, after warmup runs
+     */
+    static long measure(Runnable work, int warmup, int passes){
+
+        for (int i = 0; i < warmup; i++) work.run();
+
+        long overhead = -allocatedBytes() + allocatedBytes();
+        long before = allocatedBytes();
+
+        for (int i = 0; i < passes; i++) work.run();
+
+        return allocatedBytes() - before - overhead;
+
+    }
+
+    private static long allocatedBytes(){
+
+        if (BEAN instanceof com.sun.management.ThreadMXBean){
+
+            return ((com.sun.management.ThreadMXBean) BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        }
+
+        return -1;
+
+    }
+
+    public static void main(String [] args){
+
+        int passes = DEFAULT_PASSES;
+        long seed = DEFAULT_SEED;
+
+        for (String arg : args){
+
+            int eq = arg.indexOf('=');
+            String key = arg.substring(0, eq);
+
+            if (key.equals("passes")) passes = Integer.parseInt(arg.substring(eq + 1));
+            else if (key.equals("seed")) seed = Long.parseLong(arg.substring(eq + 1));
+            else throw new IllegalArgumentException("Unknown argument " + arg);
+
+        }
+
+        if (allocatedBytes() < 0){
+
+            System.out.println("This JVM cannot count the bytes a thread allocates");
+            System.exit(1);
+
+        }
+
+        boolean failed = false;
+
+        for (int [] shape : SHAPES){
+
+            int rows = shape[0], cols = shape[1], numToWin = shape[2];
+            IGameBoard [] boards = { new GameBoard(rows, cols, numToWin), new GameBoardMem(rows, cols, numToWin),
+                    new GameBoardBit(rows, cols, numToWin) };
+
+            for (IGameBoard board : boards){
+
+                fill(board, shape[3], shape[4], new SplittableRandom(seed));
+
+                long bytes = measure(() -> pass(board), WARMUP_PASSES, passes);
+
+                System.out.println(board.getClass().getSimpleName() + " " + rows + "x" + cols + " to " + numToWin
+                        + " with " + shape[3] + " players: " + bytes + " bytes");
+
+                if (bytes != 0) failed = true;
+
+                Runnable playout = new MonteCarloAI().playoutTask(board, ConnectXController.PLAYER_TOKENS, shape[3], IGameBoard.START);
+
+                bytes = measure(playout, WARMUP_PLAYOUTS, passes);
+
+                System.out.println("  MonteCarloAI playout: " + bytes + " bytes");
+
+                if (bytes != 0) failed = true;
+
+            }
+
+        }
+
+        if (sink == 0) System.out.println();
+
+        if (failed){
+
+            System.out.println("checkForWin, checkIfFree or a playout allocated");
+            System.exit(1);
+
+        }
+
+    }
+
+}
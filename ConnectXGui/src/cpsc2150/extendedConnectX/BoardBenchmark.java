@@ -0,0 +1,495 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time and allocation of every IGameBoard implementation on placeToken,
+ * whatsAtPos, checkIfFree, checkForWin and toString. The parameters are board size,
+ * numToWin, how full the board is and the number of players. The results give the measured
+ * crossover points behind the choice of board, and can be saved and compared between runs to
+ * catch regressions.
+ *
+ * Each measurement first runs the operation in batches that double in size until one batch
+ * takes the warmup time, so the JIT has compiled it. It then runs batches of that size for
+ * the measure time. Allocation is read from the thread's allocated byte counter.
+ *
+ * Arguments are key=value pairs, all optional:
+ *  sizes=3,7,6x7,100   wins=3,5   players=2,10   fills=0,0.5,0.9   types=array,mem,bit,adaptive
+ *  ops=place_token,...   warmup=ms   measure=ms   out=results.csv   baseline=old.csv
+ */
+public class BoardBenchmark {
+
+    public enum Op { PLACE_TOKEN, WHATS_AT_POS, CHECK_IF_FREE, CHECK_FOR_WIN, TO_STRING }
+
+    public static final long DEFAULT_WARMUP_MILLIS = 10;
+    public static final long DEFAULT_MEASURE_MILLIS = 50;
+
+    // A result more than this much slower than its baseline is reported as a regression
+    public static final double REGRESSION_TOLERANCE = 0.25;
+
+    public static final String CSV_HEADER = "type,rows,columns,numToWin,players,fill,op,nsPerOp,bytesPerOp";
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    // Positions and columns are cycled through so the same few cells are not always hit
+    private static final int NUM_POSITIONS = 1024;
+    private static final int POSITION_MASK = NUM_POSITIONS - 1;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+
+    // Results are folded in here so the JIT cannot remove the measured calls
+    private long sink;
+
+    /**
+     * One measured combination of parameters.
+     */
+    public static final class Result {
+
+        public final BoardType type;
+        public final int rows;
+        public final int columns;
+        public final int numToWin;
+        public final int players;
+        public final double fill;
+        public final Op op;
+        public final double nsPerOp;
+        public final double bytesPerOp;
+
+        Result(BoardType type, int rows, int columns, int numToWin, int players, double fill, Op op,
+               double nsPerOp, double bytesPerOp){
+
+            this.type = type;
+            this.rows = rows;
+            this.columns = columns;
+            this.numToWin = numToWin;
+            this.players = players;
+            this.fill = fill;
+            this.op = op;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+
+        }
+
+        /**
+         * @return      the parameters of this result, which are the same from run to run
+         */
+        public String key(){ return type + "," + rows + "," + columns + "," + numToWin + "," + players + "," + fill + "," + op; }
+
+        @Override
+        public String toString(){ return key() + String.format(",%.2f,%.2f", nsPerOp, bytesPerOp); }
+
+    }
+
+    /**
+     * @param warmupMillis      how long one batch must take before the measuring starts.
+     * @param measureMillis     how long each combination is measured for.
+     * @pre                     warmupMillis > 0 AND measureMillis > 0
+     * @post                    [a benchmark with these time budgets is created]
+     */
+    public BoardBenchmark(long warmupMillis, long measureMillis){
+
+        warmupNanos = warmupMillis * NANOS_PER_MILLI;
+        measureNanos = measureMillis * NANOS_PER_MILLI;
+
+    }
+
+    /**
+     * Fills a new board of type to fill with moves that do not win, then measures op on it.
+     *
+     * @param fill      the share of cells to fill, from 0 to 1.
+     * @return          the result, or null if op cannot be run on such a board: placeToken
+     *                  needs a free column and checkForWin needs a token.
+     * @pre             [the board settings are valid] AND 2 <= players <= MAX_PLAYERS
+     */
+    public Result measure(BoardType type, int rows, int columns, int numToWin, int players, double fill, Op op){
+
+        IGameBoard board = type.create(rows, columns, numToWin);
+        SplittableRandom random = new SplittableRandom(rows * 31L + columns);
+        int placed = fill(board, players, fill, random);
+        int [] posRows = new int[NUM_POSITIONS];
+        int [] posColumns = new int[NUM_POSITIONS];
+
+        for (int i = IGameBoard.START; i < NUM_POSITIONS; i++){
+
+            posRows[i] = random.nextInt(rows);
+            posColumns[i] = random.nextInt(columns);
+
+        }
+
+        int [] free = cycle(board, random, true);
+        int [] filled = cycle(board, random, false);
+
+        if ((op == Op.PLACE_TOKEN && free == null) || (op == Op.CHECK_FOR_WIN && filled == null)) return null;
+
+        // The token the next seat would play, so placeToken sees a realistic mix
+        char token = ConnectXController.PLAYER_TOKENS[placed % players];
+        long ops = 1;
+
+        while (time(board, op, ops, token, posRows, posColumns, free, filled) < warmupNanos) ops *= 2;
+
+        long done = 0;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+
+        do {
+
+            time(board, op, ops, token, posRows, posColumns, free, filled);
+            done += ops;
+            elapsed = System.nanoTime() - start;
+
+        } while (elapsed < measureNanos);
+
+        bytes = allocatedBytes() - bytes;
+
+        return new Result(type, rows, columns, numToWin, players, fill, op, (double) elapsed / done, (double) bytes / done);
+
+    }
+
+    /**
+     * @return      the value folded from every measured call, which only exists to keep them from being removed
+     */
+    public long getSink(){ return sink; }
+
+    /**
+     * Runs op count times.
+     *
+     * @return      the nanoseconds it took
+     */
+    private long time(IGameBoard board, Op op, long count, char token, int [] posRows, int [] posColumns, int [] free, int [] filled){
+
+        long start = System.nanoTime();
+        long s = 0;
+
+        switch (op){
+
+            case PLACE_TOKEN:
+                // A token is taken back after every drop so the board stays as it was filled
+                for (long i = 0; i < count; i++){
+
+                    int c = free[(int) i & POSITION_MASK];
+
+                    board.placeToken(token, c);
+                    board.removeToken(c);
+
+                }
+                break;
+
+            case WHATS_AT_POS:
+                for (long i = 0; i < count; i++){
+
+                    int j = (int) i & POSITION_MASK;
+
+                    s += board.whatsAtPos(posRows[j], posColumns[j]);
+
+                }
+                break;
+
+            case CHECK_IF_FREE:
+                for (long i = 0; i < count; i++){
+
+                    if (board.checkIfFree(posColumns[(int) i & POSITION_MASK])) s++;
+
+                }
+                break;
+
+            case CHECK_FOR_WIN:
+                for (long i = 0; i < count; i++){
+
+                    if (board.checkForWin(filled[(int) i & POSITION_MASK])) s++;
+
+                }
+                break;
+
+            case TO_STRING:
+                for (long i = 0; i < count; i++) s += board.toString().length();
+                break;
+
+        }
+
+        sink += s;
+
+        return System.nanoTime() - start;
+
+    }
+
+    /**
+     * Drops tokens of the seats in turn in random columns until fill of the cells are taken,
+     * skipping any drop that would win, so that checkForWin does the full scan.
+     *
+     * @return      the number of tokens placed
+     */
+    private static int fill(IGameBoard board, int players, double fill, SplittableRandom random){
+
+        int cols = board.getNumColumns();
+        int target = (int) Math.round(fill * board.getNumRows() * cols);
+        int placed = 0;
+
+        while (placed < target){
+
+            char token = ConnectXController.PLAYER_TOKENS[placed % players];
+            int first = random.nextInt(cols);
+            boolean dropped = false;
+
+            for (int k = IGameBoard.START; k < cols && !dropped; k++){
+
+                int c = (first + k) % cols;
+
+                if (!board.checkIfFree(c)) continue;
+
+                board.placeToken(token, c);
+
+                if (board.checkForWin(c)) board.removeToken(c);
+                else dropped = true;
+
+            }
+
+            // Every free column would win, so the board cannot get any fuller
+            if (!dropped) break;
+
+            placed++;
+
+        }
+
+        return placed;
+
+    }
+
+    /**
+     * @param free      true for the free columns, false for the columns with a token
+     * @return          NUM_POSITIONS of those columns picked at random, or null if there are none
+     */
+    private static int [] cycle(IGameBoard board, SplittableRandom random, boolean free){
+
+        int [] columns = new int[board.getNumColumns()];
+        int n = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (free ? board.checkIfFree(c) : board.getColumnHeight(c) > 0) columns[n++] = c;
+
+        }
+
+        if (n == 0) return null;
+
+        int [] picks = new int[NUM_POSITIONS];
+
+        for (int i = IGameBoard.START; i < NUM_POSITIONS; i++) picks[i] = columns[random.nextInt(n)];
+
+        return picks;
+
+    }
+
+    /**
+     * @return      the bytes this thread has allocated, or 0 if the JVM does not count them
+     */
+    private static long allocatedBytes(){
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean){
+
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        }
+
+        return 0;
+
+    }
+
+    /**
+     * Prints, for each board size and fill, the geometric mean time of the measured operations
+     * for every type and which type is fastest. This is where the crossover points show. The
+     * geometric mean keeps one slow operation such as toString from hiding all the others.
+     */
+    private static void printSummary(List<Result> results){
+
+        Map<String, double []> totals = new HashMap<>();
+        List<String> order = new ArrayList<>();
+        int numTypes = BoardType.values().length;
+
+        for (Result r : results){
+
+            String key = r.rows + "x" + r.columns + " fill " + r.fill;
+            double [] t = totals.get(key);
+
+            if (t == null){
+
+                t = new double[2 * numTypes];
+                totals.put(key, t);
+                order.add(key);
+
+            }
+
+            t[r.type.ordinal()] += Math.log(r.nsPerOp);
+            t[numTypes + r.type.ordinal()]++;
+
+        }
+
+        System.out.println();
+        System.out.println("geometric mean ns/op over the measured operations");
+
+        for (String key : order){
+
+            double [] t = totals.get(key);
+            StringBuilder line = new StringBuilder(key);
+            int best = -1;
+
+            for (BoardType type : BoardType.values()){
+
+                int i = type.ordinal();
+
+                if (t[numTypes + i] == 0) continue;
+
+                double mean = Math.exp(t[i] / t[numTypes + i]);
+
+                line.append(String.format(" | %s %.1f", type, mean));
+
+                if (best < 0 || mean < Math.exp(t[best] / t[numTypes + best])) best = i;
+
+            }
+
+            System.out.println(line.append(" | fastest ").append(BoardType.values()[best]));
+
+        }
+
+    }
+
+    /**
+     * @return      the number of results more than REGRESSION_TOLERANCE slower than in baseline
+     */
+    private static int compare(List<Result> results, String baseline) throws IOException {
+
+        Map<String, Double> old = new HashMap<>();
+
+        for (String line : Files.readAllLines(Paths.get(baseline))){
+
+            if (line.equals(CSV_HEADER)) continue;
+
+            // The key is everything before the last two values
+            int bytesComma = line.lastIndexOf(',');
+            int nsComma = line.lastIndexOf(',', bytesComma - 1);
+
+            old.put(line.substring(0, nsComma), Double.parseDouble(line.substring(nsComma + 1, bytesComma)));
+
+        }
+
+        int regressions = 0;
+
+        for (Result r : results){
+
+            Double before = old.get(r.key());
+
+            if (before != null && r.nsPerOp > before * (1 + REGRESSION_TOLERANCE)){
+
+                System.out.println(String.format("REGRESSION %s: %.2f -> %.2f ns/op", r.key(), before, r.nsPerOp));
+                regressions++;
+
+            }
+
+        }
+
+        return regressions;
+
+    }
+
+    private static int [] ints(String list){
+
+        String [] parts = list.split(",");
+        int [] values = new int[parts.length];
+
+        for (int i = IGameBoard.START; i < parts.length; i++) values[i] = Integer.parseInt(parts[i]);
+
+        return values;
+
+    }
+
+    public static void main(String [] args) throws IOException {
+
+        Map<String, String> options = new HashMap<>();
+
+        options.put("sizes", "3,7,10,20,50,100");
+        options.put("wins", "3,5");
+        options.put("players", "2,10");
+        options.put("fills", "0,0.5,0.9");
+        options.put("types", "array,mem,bit");
+        options.put("ops", "place_token,whats_at_pos,check_if_free,check_for_win,to_string");
+        options.put("warmup", Long.toString(DEFAULT_WARMUP_MILLIS));
+        options.put("measure", Long.toString(DEFAULT_MEASURE_MILLIS));
+
+        for (String arg : args){
+
+            int eq = arg.indexOf('=');
+
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+
+        }
+
+        BoardBenchmark bench = new BoardBenchmark(Long.parseLong(options.get("warmup")), Long.parseLong(options.get("measure")));
+        List<Result> results = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+
+        lines.add(CSV_HEADER);
+        System.out.println(CSV_HEADER);
+
+        for (String size : options.get("sizes").split(",")){
+
+            // A size is either NxN or RxC
+            int x = size.indexOf('x');
+            int rows = Integer.parseInt(x < 0 ? size : size.substring(0, x));
+            int cols = Integer.parseInt(x < 0 ? size : size.substring(x + 1));
+
+            for (int numToWin : ints(options.get("wins"))){
+
+                if (numToWin > Math.min(rows, cols)) continue;
+
+                for (int players : ints(options.get("players"))){
+
+                    for (String fill : options.get("fills").split(",")){
+
+                        for (String type : options.get("types").split(",")){
+
+                            for (String op : options.get("ops").split(",")){
+
+                                Result r = bench.measure(BoardType.valueOf(type.toUpperCase()), rows, cols,
+                                        numToWin, players, Double.parseDouble(fill), Op.valueOf(op.toUpperCase()));
+
+                                if (r == null) continue;
+
+                                results.add(r);
+                                lines.add(r.toString());
+                                System.out.println(r);
+
+                            }
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        printSummary(results);
+
+        if (options.containsKey("out")) Files.write(Paths.get(options.get("out")), lines);
+
+        if (bench.getSink() == Long.MIN_VALUE) System.out.println();
+
+        if (options.containsKey("baseline") && compare(results, options.get("baseline")) > 0) System.exit(1);
+
+    }
+
+}
@@ -0,0 +1,461 @@
+package cpsc2150.extendedConnectX;
+
+import java.awt.*;
+import java.util.Arrays;
+
+import javax.swing.*;
+
+/**
+ * One component that paints the whole game board, in place of a JButton for every cell.
+ *
+ * The tokens are kept in a char array with one entry a cell, so a 100x100 board is 10,000
+ * chars rather than 10,000 buttons. setMarker only repaints the rectangle of the cell that
+ * changed, and paintComponent only draws the cells inside the clip it is given, so a move
+ * costs the same to show on any size of board.
+ *
+ * The canvas is Scrollable and meant to sit in a JScrollPane. Its size is the board at
+ * cellSize pixels a cell, which setCellSize changes to zoom, and the viewport's clip means
+ * only the visible cells are drawn. A board smaller than the viewport stretches to fill it,
+ * the same way the buttons did in their GridLayout.
+ *
+ * How a cell is drawn depends on its size on screen:
+ *  - from LETTER_MIN_CELL pixels, the token's letter inside a grid
+ *  - from GRID_MIN_CELL pixels, a block in the token's color inside a grid
+ *  - below that, no grid, and each run of equal tokens in a line is filled as one tile
+ *
+ * With setAnimated, a placed token falls from the top of the board to its cell over
+ * DROP_MILLIS, speeding up as it goes. The cell is set at once, so getMarker and everything
+ * behind the view are never held up by the animation; only the drawing catches up. The
+ * shared FrameClock ticks every falling token, and each frame repaints just the part of its
+ * column that the token moved through. A column holds at most one falling token: a token
+ * dropped on top of one that is still falling lands the first one right away, so a burst of
+ * moves, such as a resumed game being played back, is at most one animation a column.
+ *
+ * @invariant       numRows > 0 AND numColumns > 0 AND
+ *                  MIN_CELL <= cellSize <= MAX_CELL AND
+ *                  cells.length = numRows * numColumns AND
+ *                  [cells[r * numColumns + c] is the token at row r, column c, row 0 at the bottom] AND
+ *                  [falling[0 .. numFalling - 1] are the columns c with fallingRow[c] != NOT_FALLING]
+ */
+public class BoardCanvas extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MIN_CELL = 1;
+    public static final int MAX_CELL = 100;
+    public static final int LETTER_MIN_CELL = 12;
+    public static final int GRID_MIN_CELL = 5;
+    public static final int DROP_MILLIS = 250;
+
+    private static final int NOT_FALLING = -1;
+    private static final double NANOS_PER_DROP = DROP_MILLIS * 1e6;
+
+    // The largest viewport the canvas asks for before it scrolls
+    private static final Dimension MAX_VIEWPORT = new Dimension(1000, 700);
+
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color GRID = Color.LIGHT_GRAY;
+    private static final Color TOKEN = Color.BLACK;
+    private static final int PALETTE_SIZE = 128;
+    private static final Color [] PALETTE = palette();
+
+    // The token's letter takes this share of a cell's height
+    private static final float FONT_SCALE = 0.8f;
+
+    private final int numRows;
+    private final int numColumns;
+    private final char [] cells;
+    private int cellSize;
+
+    // For each column, the row of its falling token or NOT_FALLING, when it was dropped and
+    // the y it was last drawn at, and the columns that have one
+    private boolean animated;
+    private final int [] fallingRow;
+    private final long [] fallStart;
+    private final int [] fallY;
+    private final int [] falling;
+    private int numFalling;
+
+    private Font font;
+    private int fontCellHeight;
+
+    /**
+     * @param numRows       the number of rows on the board.
+     * @param numColumns    the number of columns on the board.
+     * @param cellSize      the preferred width and height of a cell in pixels.
+     * @pre                 numRows > 0 AND numColumns > 0 AND cellSize > 0
+     * @post                [every cell is empty]
+     */
+    public BoardCanvas(int numRows, int numColumns, int cellSize){
+
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        cells = new char[numRows * numColumns];
+        fallingRow = new int[numColumns];
+        fallStart = new long[numColumns];
+        fallY = new int[numColumns];
+        falling = new int[numColumns];
+
+        Arrays.fill(cells, ' ');
+        Arrays.fill(fallingRow, NOT_FALLING);
+
+        setOpaque(true);
+        setFont(new Font(Font.SANS_SERIF, Font.BOLD, cellSize));
+        setCellSize(cellSize);
+
+    }
+
+    /**
+     * A color for each player token, spread evenly around the hue circle, indexed by the
+     * token's char. Other chars are drawn in TOKEN.
+     */
+    private static Color [] palette(){
+
+        Color [] palette = new Color[PALETTE_SIZE];
+        char [] tokens = ConnectXController.PLAYER_TOKENS;
+
+        Arrays.fill(palette, TOKEN);
+
+        for (int i = 0; i < tokens.length; i++) palette[tokens[i]] = Color.getHSBColor((float) i / tokens.length, 0.8f, 0.85f);
+
+        return palette;
+
+    }
+
+    /**
+     * @return      the color marker is drawn in when the cells are too small for letters
+     */
+    public static Color color(char marker){ return marker < PALETTE_SIZE ? PALETTE[marker] : TOKEN; }
+
+    public int getNumRows(){ return numRows; }
+
+    public int getNumColumns(){ return numColumns; }
+
+    public int getCellSize(){ return cellSize; }
+
+    /**
+     * Zooms to size pixels a cell. The parent has to be revalidated for the new size to show.
+     *
+     * @post        cellSize = [size clamped to MIN_CELL..MAX_CELL] AND
+     *              getPreferredSize() = [the board at cellSize pixels a cell]
+     */
+    public void setCellSize(int size){
+
+        cellSize = Math.max(MIN_CELL, Math.min(MAX_CELL, size));
+
+        setPreferredSize(new Dimension(numColumns * cellSize, numRows * cellSize));
+        repaint();
+
+    }
+
+    /**
+     * @return      the token shown at row, column
+     * @pre         0 <= row < numRows AND 0 <= column < numColumns
+     */
+    public char getMarker(int row, int column){ return cells[row * numColumns + column]; }
+
+    /**
+     * @param on    true to drop placed tokens from the top of the board.
+     * @post        [tokens placed from now on fall if on] AND
+     *              [if not on, every falling token has landed]
+     */
+    public void setAnimated(boolean on){
+
+        animated = on;
+
+        if (!on) while (numFalling > 0) land(falling[numFalling - 1]);
+
+    }
+
+    /**
+     * Shows marker at row, column. Without animation, or when a token is taken off, this
+     * repaints just that cell. A placed token is dropped in when animated is on and the cells
+     * are big enough to see it fall.
+     *
+     * @pre         0 <= row < numRows AND 0 <= column < numColumns
+     * @post        getMarker(row, column) = marker
+     */
+    public void setMarker(int row, int column, char marker){
+
+        int index = row * numColumns + column;
+
+        if (cells[index] == marker) return;
+
+        cells[index] = marker;
+
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+
+        // A token taken back, or covered by the next one, lands first
+        if (fallingRow[column] != NOT_FALLING) land(column);
+
+        if (animated && marker != ' ' && isShowing() && Math.min(cellWidth, cellHeight) >= GRID_MIN_CELL){
+
+            fallingRow[column] = row;
+            fallStart[column] = System.nanoTime();
+            fallY[column] = 0;
+            falling[numFalling++] = column;
+
+            FrameClock.start(this);
+            repaint(column * cellWidth, 0, cellWidth, cellHeight);
+
+            return;
+
+        }
+
+        repaint(column * cellWidth, (numRows - 1 - row) * cellHeight, cellWidth, cellHeight);
+
+    }
+
+    /**
+     * @post        [every cell is empty] AND [no token is falling]
+     */
+    public void clear(){
+
+        Arrays.fill(cells, ' ');
+        Arrays.fill(fallingRow, NOT_FALLING);
+        numFalling = 0;
+        repaint();
+
+    }
+
+    /**
+     * Moves every falling token to where it is at time now, repainting the part of its column
+     * it moved through, and lands the ones that have reached their cell. Called by FrameClock.
+     *
+     * @return      true if a token is still falling
+     */
+    boolean animate(long now){
+
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+
+        for (int i = numFalling - 1; i >= 0; i--){
+
+            int c = falling[i];
+            double t = (now - fallStart[c]) / NANOS_PER_DROP;
+
+            if (t >= 1){
+
+                land(c);
+                continue;
+
+            }
+
+            // Falls from rest and speeds up, the way a dropped token does
+            int y = (int) ((numRows - 1 - fallingRow[c]) * cellHeight * t * t);
+            int top = Math.min(y, fallY[c]);
+
+            repaint(c * cellWidth, top, cellWidth, Math.max(y, fallY[c]) + cellHeight - top);
+            fallY[c] = y;
+
+        }
+
+        return numFalling > 0;
+
+    }
+
+    /**
+     * Ends the fall in column, so its token shows in its cell.
+     *
+     * @pre         fallingRow[column] != NOT_FALLING
+     * @post        fallingRow[column] = NOT_FALLING AND numFalling = #numFalling - 1
+     */
+    private void land(int column){
+
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+        int targetY = (numRows - 1 - fallingRow[column]) * cellHeight;
+
+        repaint(column * cellWidth, fallY[column], cellWidth, targetY + cellHeight - fallY[column]);
+        fallingRow[column] = NOT_FALLING;
+
+        for (int i = 0; i < numFalling; i++){
+
+            if (falling[i] == column){
+
+                falling[i] = falling[--numFalling];
+                break;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * @return      the column under x, clamped to the board
+     */
+    public int columnAt(int x){ return Math.max(IGameBoard.MIN_COLUMN, Math.min(numColumns - 1, x / cellWidth())); }
+
+    /**
+     * @return      the x of the left edge of column
+     */
+    public int columnX(int column){ return column * cellWidth(); }
+
+    private int cellWidth(){ return Math.max(1, getWidth() / numColumns); }
+
+    private int cellHeight(){ return Math.max(1, getHeight() / numRows); }
+
+    @Override
+    protected void paintComponent(Graphics g){
+
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        g.setColor(BACKGROUND);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+
+        // Only the cells that overlap the clip are drawn
+        int firstColumn = Math.max(IGameBoard.MIN_COLUMN, clip.x / cellWidth);
+        int lastColumn = Math.min(numColumns - 1, (clip.x + clip.width - 1) / cellWidth);
+        int firstLine = Math.max(0, clip.y / cellHeight);
+        int lastLine = Math.min(numRows - 1, (clip.y + clip.height - 1) / cellHeight);
+
+        if (Math.min(cellWidth, cellHeight) < GRID_MIN_CELL){
+
+            paintTiles(g, cellWidth, cellHeight, firstColumn, lastColumn, firstLine, lastLine);
+
+            return;
+
+        }
+
+        boolean letters = Math.min(cellWidth, cellHeight) >= LETTER_MIN_CELL;
+
+        if (letters && fontCellHeight != cellHeight){
+
+            font = getFont().deriveFont(Font.BOLD, cellHeight * FONT_SCALE);
+            fontCellHeight = cellHeight;
+
+        }
+
+        g.setFont(letters ? font : getFont());
+
+        FontMetrics metrics = g.getFontMetrics();
+        int baseline = (cellHeight - metrics.getHeight()) / 2 + metrics.getAscent();
+
+        for (int line = firstLine; line <= lastLine; line++){
+
+            int row = numRows - 1 - line;
+            int y = line * cellHeight;
+
+            for (int c = firstColumn; c <= lastColumn; c++){
+
+                int x = c * cellWidth;
+
+                g.setColor(GRID);
+                g.drawRect(x, y, cellWidth - 1, cellHeight - 1);
+
+                // A falling token is drawn where it is in its fall instead
+                if (cells[row * numColumns + c] != ' ' && fallingRow[c] != row){
+
+                    drawToken(g, row * numColumns + c, x, y, cellWidth, cellHeight, letters, metrics, baseline);
+
+                }
+
+            }
+
+        }
+
+        for (int i = 0; i < numFalling; i++){
+
+            int c = falling[i];
+
+            if (c >= firstColumn && c <= lastColumn){
+
+                drawToken(g, fallingRow[c] * numColumns + c, c * cellWidth, fallY[c], cellWidth, cellHeight, letters, metrics, baseline);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Draws the token in cells[index] in the cell whose top left corner is x, y.
+     */
+    private void drawToken(Graphics g, int index, int x, int y, int cellWidth, int cellHeight, boolean letters, FontMetrics metrics, int baseline){
+
+        char marker = cells[index];
+
+        if (letters){
+
+            g.setColor(TOKEN);
+            g.drawChars(cells, index, 1, x + (cellWidth - metrics.charWidth(marker)) / 2, y + baseline);
+
+        }
+        else{
+
+            g.setColor(color(marker));
+            g.fillRect(x + 1, y + 1, cellWidth - 2, cellHeight - 2);
+
+        }
+
+    }
+
+    /**
+     * Paints the visible lines without a grid, filling each run of equal tokens as one
+     * rectangle. A zoomed out board has most of its cells in long runs of empty cells or
+     * of stacked tokens, so this is far fewer fills than cells.
+     */
+    private void paintTiles(Graphics g, int cellWidth, int cellHeight, int firstColumn, int lastColumn, int firstLine, int lastLine){
+
+        for (int line = firstLine; line <= lastLine; line++){
+
+            int start = (numRows - 1 - line) * numColumns;
+            int c = firstColumn;
+
+            while (c <= lastColumn){
+
+                char marker = cells[start + c];
+                int end = c + 1;
+
+                while (end <= lastColumn && cells[start + end] == marker) end++;
+
+                if (marker != ' '){
+
+                    g.setColor(color(marker));
+                    g.fillRect(c * cellWidth, line * cellHeight, (end - c) * cellWidth, cellHeight);
+
+                }
+
+                c = end;
+
+            }
+
+        }
+
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize(){
+
+        Dimension size = getPreferredSize();
+
+        return new Dimension(Math.min(size.width, MAX_VIEWPORT.width), Math.min(size.height, MAX_VIEWPORT.height));
+
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction){ return cellSize; }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction){
+
+        int extent = orientation == SwingConstants.HORIZONTAL ? visible.width : visible.height;
+
+        return Math.max(cellSize, extent - cellSize);
+
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth(){ return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width; }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight(){ return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height; }
+
+}
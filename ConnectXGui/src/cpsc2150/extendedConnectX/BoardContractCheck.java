@@ -0,0 +1,154 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.SplittableRandom;
+
+/**
+ * Checks that GameBoardMem and GameBoardBit keep the IGameBoard contract exactly the way
+ * GameBoard does. Every game is a random sequence of moves played on all three boards at
+ * once, and after every move checkIfFree, checkForWin, checkTie and the placed cell must
+ * agree. When the game ends every cell and toString must agree as well.
+ *
+ * The first game is on a MAX_NUM_ROWS x MAX_NUM_COLUMNS board and the rest go up to that
+ * size, with up to ConnectXController.MAX_PLAYERS players. Every other game uses the largest
+ * numToWin the board allows, where the window GameBoardBit extracts for a win check is as
+ * wide as the board.
+ *
+ * Arguments are key=value pairs, all optional:  games=N  seed=S
+ * Exits with status 1 on the first disagreement, so it can run in a build.
+ */
+public class BoardContractCheck {
+
+    public static final int DEFAULT_GAMES = 2000;
+    public static final long DEFAULT_SEED = 1;
+
+    // One game in this many is on a board of any size up to the largest, the rest are small
+    private static final int LARGE_EVERY = 10;
+    private static final int SMALL_SPAN = 8;
+
+    private BoardContractCheck(){}
+
+    /**
+     * Plays one random game on all three boards.
+     *
+     * @return      null if the boards agreed, otherwise what they disagreed on
+     */
+    static String checkGame(int rows, int cols, int numToWin, int players, SplittableRandom random){
+
+        IGameBoard [] boards = { new GameBoard(rows, cols, numToWin), new GameBoardMem(rows, cols, numToWin),
+                new GameBoardBit(rows, cols, numToWin) };
+        IGameBoard reference = boards[IGameBoard.START];
+        int turn = IGameBoard.START;
+        int moves = IGameBoard.MIN_NUM_MOVES;
+
+        while (true){
+
+            int c = random.nextInt(cols);
+            boolean free = reference.checkIfFree(c);
+
+            for (IGameBoard b : boards) if (b.checkIfFree(c) != free) return name(b) + " checkIfFree(" + c + ")";
+
+            if (!free) continue;
+
+            char token = ConnectXController.PLAYER_TOKENS[turn];
+            int row = reference.getColumnHeight(c);
+
+            for (IGameBoard b : boards) b.placeToken(token, c);
+
+            moves++;
+
+            boolean won = reference.checkForWin(c);
+            boolean tied = reference.checkTie();
+
+            for (IGameBoard b : boards){
+
+                if (b.whatsAtPos(new BoardPosition(row, c)) != token) return name(b) + " whatsAtPos(" + row + ", " + c + ")";
+
+                if (b.checkForWin(c) != won) return name(b) + " checkForWin(" + c + ") after move " + moves;
+
+                if (b.checkTie() != tied) return name(b) + " checkTie() after move " + moves;
+
+            }
+
+            if (won || tied) break;
+
+            turn = (turn + 1) % players;
+
+        }
+
+        for (int r = IGameBoard.MIN_ROW; r < rows; r++){
+
+            for (int c = IGameBoard.MIN_COLUMN; c < cols; c++){
+
+                BoardPosition pos = new BoardPosition(r, c);
+                char expected = reference.whatsAtPos(pos);
+
+                for (IGameBoard b : boards) if (b.whatsAtPos(pos) != expected) return name(b) + " whatsAtPos(" + r + ", " + c + ") at the end";
+
+            }
+
+        }
+
+        String text = reference.toString();
+
+        for (IGameBoard b : boards) if (!b.toString().equals(text)) return name(b) + " toString()";
+
+        return null;
+
+    }
+
+    private static String name(IGameBoard board){ return board.getClass().getSimpleName(); }
+
+    public static void main(String [] args){
+
+        int games = DEFAULT_GAMES;
+        long seed = DEFAULT_SEED;
+
+        for (String arg : args){
+
+            int eq = arg.indexOf('=');
+            String key = arg.substring(0, eq);
+
+            if (key.equals("games")) games = Integer.parseInt(arg.substring(eq + 1));
+            else if (key.equals("seed")) seed = Long.parseLong(arg.substring(eq + 1));
+            else throw new IllegalArgumentException("Unknown argument " + arg);
+
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int g = IGameBoard.START; g < games; g++){
+
+            boolean large = g % LARGE_EVERY == 0;
+            int rows = IGameBoard.MIN_NUM_ROWS + random.nextInt(large ? IGameBoard.MAX_NUM_ROWS - IGameBoard.MIN_NUM_ROWS + 1 : SMALL_SPAN);
+            int cols = IGameBoard.MIN_NUM_COLUMNS + random.nextInt(large ? IGameBoard.MAX_NUM_COLUMNS - IGameBoard.MIN_NUM_COLUMNS + 1 : SMALL_SPAN);
+
+            // The first game is always on the largest board
+            if (g == IGameBoard.START){
+
+                rows = IGameBoard.MAX_NUM_ROWS;
+                cols = IGameBoard.MAX_NUM_COLUMNS;
+
+            }
+
+            int maxToWin = Math.min(Math.min(rows, cols), IGameBoard.MAX_NUM_TO_WIN);
+
+            // Half of the games need a line as long as the board allows
+            int numToWin = g % 2 == 0 ? maxToWin : IGameBoard.MIN_NUM_TO_WIN + random.nextInt(maxToWin - IGameBoard.MIN_NUM_TO_WIN + 1);
+            int players = 2 + random.nextInt(ConnectXController.MAX_PLAYERS - 1);
+
+            String failure = checkGame(rows, cols, numToWin, players, random);
+
+            if (failure != null){
+
+                System.out.println("Game " + g + " on " + rows + "x" + cols + " to " + numToWin + " with " + players + " players: " + failure);
+                System.exit(1);
+
+            }
+
+        }
+
+        System.out.println(games + " games agreed on GameBoard, GameBoardMem and GameBoardBit");
+
+    }
+
+}
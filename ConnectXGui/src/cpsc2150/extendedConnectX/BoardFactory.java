@@ -0,0 +1,199 @@
+package cpsc2150.extendedConnectX;
+
+/**
+ * Chooses the IGameBoard implementation for a game from a cost model instead of a fixed
+ * board area cutoff. For each BoardType it estimates the bytes the board takes and the time
+ * a move costs, from the board size, numToWin and the number of players. It picks the
+ * fastest type that fits in the memory budget.
+ *
+ * The per operation costs are steady state numbers from BoardBenchmark. The expected game
+ * length comes from SelfPlayRunner games. A dense GameBoard is fastest on every size the
+ * benchmark covers and takes about 20 KB at 100x100, so with the default budget it is
+ * always chosen. A sparse board is only worth it under a tighter budget. It is then created
+ * as an AdaptiveGameBoard, which turns dense once it passes switchMoves tokens.
+ */
+public final class BoardFactory {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64 * 1024;
+
+    // Sizes used to estimate the bytes of a board on a 64 bit JVM with compressed pointers
+    private static final int OBJECT_HEADER = 16;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    private static final int CHAR_BYTES = 2;
+    private static final int INT_BYTES = 4;
+    private static final int LONG_BYTES = 8;
+
+    // GameBoardMem keeps its table at most half full and never smaller than this
+    private static final int MEM_START_CAPACITY = 16;
+    private static final int MEM_MAX_LOAD = 2;
+
+    // Games in SelfPlayRunner took from about 2 to 8 moves per seat per token needed to win
+    private static final int MOVES_PER_SEAT_PER_TOKEN = 6;
+
+    // Nanoseconds per operation measured with BoardBenchmark. Win checks on GameBoard and
+    // GameBoardMem walk up to numToWin cells each way, GameBoardBit first has to find the
+    // player's slot among the players seen so far.
+    private static final double ARRAY_PLACE = 21;
+    private static final double ARRAY_WIN = 40;
+    private static final double ARRAY_WIN_PER_TOKEN = 2;
+    private static final double ARRAY_LOOKUP = 9;
+    private static final double MEM_PLACE = 33;
+    private static final double MEM_WIN = 110;
+    private static final double MEM_WIN_PER_TOKEN = 4;
+    private static final double MEM_LOOKUP = 11;
+    private static final double BIT_PLACE = 52;
+    private static final double BIT_WIN = 50;
+    private static final double BIT_PER_PLAYER = 2;
+    private static final double BIT_LOOKUP = 12;
+
+    // A move is one drop, one win check and about this many cell reads by the players and the view
+    private static final int LOOKUPS_PER_MOVE = 8;
+
+    private BoardFactory(){}
+
+    /**
+     * @return      a new empty board of the type choose picks with DEFAULT_MEMORY_BUDGET
+     * @pre         [the board settings are valid] AND 2 <= numPlayers <= MAX_PLAYERS
+     */
+    public static IGameBoard create(int numRows, int numColumns, int numToWin, int numPlayers){
+
+        return create(numRows, numColumns, numToWin, numPlayers, DEFAULT_MEMORY_BUDGET);
+
+    }
+
+    /**
+     * @return      a new empty board of the type choose picks with memoryBudget
+     * @pre         [the board settings are valid] AND 2 <= numPlayers <= MAX_PLAYERS
+     */
+    public static IGameBoard create(int numRows, int numColumns, int numToWin, int numPlayers, long memoryBudget){
+
+        return choose(numRows, numColumns, numToWin, numPlayers, memoryBudget).create(numRows, numColumns, numToWin);
+
+    }
+
+    /**
+     * Picks the type with the lowest estimateNanosPerMove among those whose estimateBytes at
+     * expectedMoves fits in memoryBudget, or the smallest one if none fits. A sparse choice
+     * is returned as ADAPTIVE, so a game that runs longer than expected does not stay on the
+     * slower and, once full enough, larger sparse board.
+     *
+     * @param memoryBudget  the most bytes one board should take.
+     * @return              ARRAY, BIT or ADAPTIVE
+     */
+    public static BoardType choose(int numRows, int numColumns, int numToWin, int numPlayers, long memoryBudget){
+
+        int moves = expectedMoves(numRows, numColumns, numToWin, numPlayers);
+        BoardType best = null;
+        BoardType smallest = null;
+
+        for (BoardType type : new BoardType [] {BoardType.ARRAY, BoardType.BIT, BoardType.MEM}){
+
+            long bytes = estimateBytes(type, numRows, numColumns, numPlayers, moves);
+
+            if (smallest == null || bytes < estimateBytes(smallest, numRows, numColumns, numPlayers, moves)) smallest = type;
+
+            if (bytes <= memoryBudget && (best == null || estimateNanosPerMove(type, numToWin, numPlayers)
+                    < estimateNanosPerMove(best, numToWin, numPlayers))) best = type;
+
+        }
+
+        if (best == null) best = smallest;
+
+        return best == BoardType.MEM ? BoardType.ADAPTIVE : best;
+
+    }
+
+    /**
+     * @return      the estimated number of tokens placed in one game, at most the number of cells
+     */
+    public static int expectedMoves(int numRows, int numColumns, int numToWin, int numPlayers){
+
+        return Math.min(numRows * numColumns, MOVES_PER_SEAT_PER_TOKEN * numToWin * numPlayers);
+
+    }
+
+    /**
+     * @param moves     the number of tokens on the board.
+     * @return          the estimated bytes of a board of type with moves tokens
+     * @pre             type != ADAPTIVE
+     */
+    public static long estimateBytes(BoardType type, int numRows, int numColumns, int numPlayers, int moves){
+
+        long heights = array(numColumns, INT_BYTES);
+
+        switch (type){
+
+            case MEM:
+                int capacity = MEM_START_CAPACITY;
+
+                while (moves * MEM_MAX_LOAD > capacity) capacity *= 2;
+
+                return OBJECT_HEADER + heights + array(capacity, INT_BYTES) + array(capacity, CHAR_BYTES);
+
+            case BIT:
+                // One bitset of numLines lines per player, see GameBoardBit
+                int numLines = 3 * (numRows + numColumns) - 2;
+                int wordsPerLine = (Math.max(numRows, numColumns) + Long.SIZE - 1) / Long.SIZE;
+
+                return OBJECT_HEADER + heights + array(ConnectXController.MAX_PLAYERS, REFERENCE)
+                        + array(ConnectXController.MAX_PLAYERS, CHAR_BYTES)
+                        + (long) numPlayers * array(numLines * wordsPerLine, LONG_BYTES);
+
+            default:
+                // GameBoard keeps an extra row and column
+                return OBJECT_HEADER + heights + array(numRows + 1, REFERENCE) + (numRows + 1) * array(numColumns + 1, CHAR_BYTES);
+
+        }
+
+    }
+
+    /**
+     * @return      the estimated nanoseconds of one move on a board of type
+     * @pre         type != ADAPTIVE
+     */
+    public static double estimateNanosPerMove(BoardType type, int numToWin, int numPlayers){
+
+        switch (type){
+
+            case MEM: return MEM_PLACE + MEM_WIN + MEM_WIN_PER_TOKEN * numToWin + LOOKUPS_PER_MOVE * MEM_LOOKUP;
+            case BIT: return BIT_PLACE + BIT_WIN + BIT_PER_PLAYER * numPlayers + LOOKUPS_PER_MOVE * (BIT_LOOKUP + BIT_PER_PLAYER * numPlayers);
+            default: return ARRAY_PLACE + ARRAY_WIN + ARRAY_WIN_PER_TOKEN * numToWin + LOOKUPS_PER_MOVE * ARRAY_LOOKUP;
+
+        }
+
+    }
+
+    /**
+     * Finds the fill at which a GameBoardMem stops being smaller than a GameBoard. A sparse
+     * board is also slower on every operation, so past that point the dense board is better
+     * in every way.
+     *
+     * @return      the smallest number of tokens at which the estimated bytes of a sparse
+     *              board reach those of a dense one
+     */
+    public static int switchMoves(int numRows, int numColumns){
+
+        long dense = estimateBytes(BoardType.ARRAY, numRows, numColumns, 0, 0);
+        int cells = numRows * numColumns;
+        int moves = 0;
+
+        while (moves < cells && estimateBytes(BoardType.MEM, numRows, numColumns, 0, moves) < dense) moves++;
+
+        return moves;
+
+    }
+
+    /**
+     * @return      the bytes of an array of length elements of elementBytes each
+     */
+    private static long array(int length, int elementBytes){
+
+        long bytes = ARRAY_HEADER + (long) length * elementBytes;
+
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+
+    }
+
+}
@@ -0,0 +1,175 @@
+package cpsc2150.extendedConnectX;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import javax.swing.*;
+
+/**
+ * A strip that shows every column of the board at once as a bar as tall as the column is
+ * full, in the color of its top token, with the part of the board in the viewport outlined.
+ * Clicking or dragging on it tells the listener which column to scroll to.
+ *
+ * The minimap keeps only a height and a top token for each column, so updating it after a
+ * move is setColumn and a repaint of that column's strip, whatever the size of the board.
+ *
+ * @invariant       heights.length = tops.length = numColumns AND
+ *                  [0 <= heights[c] <= numRows and tops[c] is the top token of column c]
+ */
+public class BoardMinimap extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PREFERRED_HEIGHT = 40;
+    private static final Color BACKGROUND = new Color(0xEEEEEE);
+    private static final Color VIEW = new Color(0, 0, 0, 0x40);
+
+    private final int numRows;
+    private final int numColumns;
+    private final int [] heights;
+    private final char [] tops;
+
+    // The visible part of the board, in cells, with row 0 at the bottom
+    private final Rectangle visible = new Rectangle();
+
+    private IntConsumer columnListener;
+
+    /**
+     * @pre         numRows > 0 AND numColumns > 0
+     * @post        [every column is empty]
+     */
+    public BoardMinimap(int numRows, int numColumns){
+
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        heights = new int[numColumns];
+        tops = new char[numColumns];
+
+        Arrays.fill(tops, ' ');
+
+        setOpaque(true);
+        setPreferredSize(new Dimension(Math.max(numColumns, PREFERRED_HEIGHT), PREFERRED_HEIGHT));
+        setToolTipText("Click to scroll to a column");
+
+        MouseAdapter mouse = new MouseAdapter() {
+
+            @Override
+            public void mousePressed(MouseEvent e){ select(e.getX()); }
+
+            @Override
+            public void mouseDragged(MouseEvent e){ select(e.getX()); }
+
+        };
+
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+
+    }
+
+    /**
+     * @param listener  called with the column under the mouse when the minimap is clicked or dragged.
+     */
+    public void setColumnListener(IntConsumer listener){ columnListener = listener; }
+
+    /**
+     * Shows column as height tokens tall with top on top, and repaints only its strip.
+     *
+     * @pre         0 <= column < numColumns AND 0 <= height <= numRows
+     */
+    public void setColumn(int column, int height, char top){
+
+        if (heights[column] == height && tops[column] == top) return;
+
+        heights[column] = height;
+        tops[column] = top;
+
+        int x = columnX(column);
+
+        repaint(x, 0, columnX(column + 1) - x, getHeight());
+
+    }
+
+    /**
+     * @post        [every column is empty]
+     */
+    public void clear(){
+
+        Arrays.fill(heights, 0);
+        Arrays.fill(tops, ' ');
+        repaint();
+
+    }
+
+    /**
+     * Outlines the visible part of the board.
+     *
+     * @param firstColumn   the first visible column.
+     * @param lastColumn    the last visible column.
+     * @param firstRow      the lowest visible row.
+     * @param lastRow       the highest visible row.
+     */
+    public void setVisibleCells(int firstColumn, int lastColumn, int firstRow, int lastRow){
+
+        if (visible.x == firstColumn && visible.y == firstRow && visible.width == lastColumn - firstColumn + 1
+                && visible.height == lastRow - firstRow + 1) return;
+
+        visible.setBounds(firstColumn, firstRow, lastColumn - firstColumn + 1, lastRow - firstRow + 1);
+        repaint();
+
+    }
+
+    private int columnX(int column){ return column * getWidth() / numColumns; }
+
+    private void select(int x){
+
+        if (columnListener != null && getWidth() > 0){
+
+            columnListener.accept(Math.max(IGameBoard.MIN_COLUMN, Math.min(numColumns - 1, x * numColumns / getWidth())));
+
+        }
+
+    }
+
+    @Override
+    protected void paintComponent(Graphics g){
+
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        int height = getHeight();
+
+        g.setColor(BACKGROUND);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int first = Math.max(IGameBoard.MIN_COLUMN, clip.x * numColumns / Math.max(1, getWidth()));
+
+        for (int c = first; c < numColumns; c++){
+
+            int x = columnX(c);
+
+            if (x >= clip.x + clip.width) break;
+
+            if (heights[c] == 0) continue;
+
+            int barHeight = Math.max(1, heights[c] * height / numRows);
+
+            g.setColor(BoardCanvas.color(tops[c]));
+            g.fillRect(x, height - barHeight, Math.max(1, columnX(c + 1) - x - 1), barHeight);
+
+        }
+
+        // The rows are drawn bottom up, the same as on the board
+        int viewX = columnX(visible.x);
+        int viewTop = height - (visible.y + visible.height) * height / numRows;
+        int viewBottom = height - visible.y * height / numRows;
+
+        g.setColor(VIEW);
+        g.fillRect(viewX, viewTop, columnX(visible.x + visible.width) - viewX, viewBottom - viewTop);
+
+    }
+
+}
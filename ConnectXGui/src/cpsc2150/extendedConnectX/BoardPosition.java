@@ -64,6 +64,15 @@ public class BoardPosition {
 
     }
 
+    /**
+     * Overrided hashCode function so that positions that are equal have the same hash
+     *
+     * @return      hash of the row and column
+     * @post        hashCode = 31 * row + col
+     */
+    @Override
+    public int hashCode(){ return 31 * row + col; }
+
     /**
      * Overrided toString function used to convert board position into
      * <row, column> form.
@@ -0,0 +1,48 @@
+package cpsc2150.extendedConnectX;
+
+/**
+ * The IGameBoard implementations, so that code that chooses or compares boards can name one
+ * and create it.
+ *
+ * ARRAY - GameBoard, a dense char [][] that is fastest per operation
+ * MEM - GameBoardMem, which only stores the placed tokens
+ * BIT - GameBoardBit, one bitset per player
+ * ADAPTIVE - AdaptiveGameBoard, which starts as a GameBoardMem and turns into a GameBoard
+ *            once it gets full enough
+ */
+public enum BoardType {
+
+    ARRAY, MEM, BIT, ADAPTIVE;
+
+    /**
+     * @return      a new empty board of this type
+     * @pre         [the board settings are valid]
+     * @post        [an empty numRows x numColumns board of this type is created]
+     */
+    public IGameBoard create(int numRows, int numColumns, int numToWin){
+
+        switch (this){
+
+            case MEM: return new GameBoardMem(numRows, numColumns, numToWin);
+            case BIT: return new GameBoardBit(numRows, numColumns, numToWin);
+            case ADAPTIVE: return new AdaptiveGameBoard(numRows, numColumns, numToWin, BoardFactory.switchMoves(numRows, numColumns));
+            default: return new GameBoard(numRows, numColumns, numToWin);
+
+        }
+
+    }
+
+    /**
+     * @return      the type of board
+     */
+    public static BoardType of(IGameBoard board){
+
+        if (board instanceof GameBoardMem) return MEM;
+        if (board instanceof GameBoardBit) return BIT;
+        if (board instanceof AdaptiveGameBoard) return ADAPTIVE;
+
+        return ARRAY;
+
+    }
+
+}
@@ -1,13 +1,96 @@
 package cpsc2150.extendedConnectX;
 
+import java.io.IOException;
+
+import javax.swing.JOptionPane;
+
 /**
- * This class is the entry point of our program and just loads the set up screen and controller
+ * This class is the entry point of our program. It resumes a saved game if the player wants to,
+ * otherwise it loads the set up screen and controller
+ * <p>
+ * It also measures the cold start, from main to the first frame that is ready for input. Start the program with
+ * -Dconnectx.logStartup=true to print it. If the resume prompt is shown, the time spent answering it is included
  */
 public class ConnectXApp {
 
+    //when main was called, and how long it took until the first frame was ready for input
+    private static long mainStarted;
+    private static volatile long startupMillis = -1;
+
     public static void main(String[] args) {
+        mainStarted = System.nanoTime();
+
+        //offer to pick up a game that was still going when the window was closed
+        if (resumeSavedGame()) return;
+
         SetupView screen = new SetupView();
         SetupController controller = new SetupController(screen);
         screen.registerObserver(controller);
     }
+
+    /**
+     * @return true once the first frame has been ready for input
+     */
+    static boolean isStarted() {
+        return startupMillis >= 0;
+    }
+
+    /**
+     * @return the milliseconds from main to the first frame that was ready for input, or -1 if there has not been one
+     */
+    public static long getStartupMillis() {
+        return startupMillis;
+    }
+
+    /**
+     * Called on the event dispatch thread once the first window has opened and the events queued with it have been
+     * handled, which is when a click on it would be processed
+     *
+     * @post getStartupMillis() is the cold start time, and it is printed if connectx.logStartup is true
+     */
+    static void started() {
+        if (isStarted()) return;
+
+        startupMillis = (System.nanoTime() - mainStarted) / 1_000_000;
+
+        if (Boolean.getBoolean("connectx.logStartup")) {
+            System.out.println("Cold start: " + startupMillis + " ms from main to the first interactive frame");
+        }
+    }
+
+    /**
+     * @return true if a saved game was found and the player chose to resume it
+     * @post if the player chose not to resume, or the saved game can not be read, it is deleted
+     */
+    private static boolean resumeSavedGame() {
+        try {
+            GameSnapshot snapshot = GameSnapshot.load(GameSnapshot.DEFAULT_FILE);
+
+            if (snapshot == null) return false;
+
+            int choice = JOptionPane.showConfirmDialog(null, "Resume the " + snapshot.getNumRows() + "x"
+                    + snapshot.getNumColumns() + " game with " + snapshot.getNumPlayers() + " players from where it was left?",
+                    "Connect X", JOptionPane.YES_NO_OPTION);
+
+            if (choice == JOptionPane.YES_OPTION) {
+                ConnectXView view = new ConnectXView(snapshot.getNumRows(), snapshot.getNumColumns());
+                ConnectXController controller = new ConnectXController(snapshot.createBoard(), view, snapshot.getNumPlayers());
+
+                view.registerObserver(controller);
+                controller.resume(snapshot);
+                return true;
+            }
+
+            GameSnapshot.delete(GameSnapshot.DEFAULT_FILE);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not resume the saved game: " + e.getMessage());
+
+            try {
+                GameSnapshot.delete(GameSnapshot.DEFAULT_FILE);
+            } catch (IOException ignored) {
+                //nothing more can be done, the setup screen is shown anyway
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
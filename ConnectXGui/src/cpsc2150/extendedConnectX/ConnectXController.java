@@ -1,5 +1,15 @@
 package cpsc2150.extendedConnectX;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.swing.SwingUtilities;
+
 /**
  * The controller class will handle communication between our View and our Model (IGameBoard)
  * <p>
@@ -8,11 +18,26 @@ package cpsc2150.extendedConnectX;
  * You will need to include your IGameBoard interface
  * and both of the IGameBoard implementations from Project 4
  * If your code was correct you will not need to make any changes to your IGameBoard implementation class
+ * <p>
+ * The game itself is only changed on one worker thread, so computer moves, endgame hints and saving never freeze the
+ * screen. The view calls the process methods on the event dispatch thread, they hand the work to the worker in the
+ * order they were called, and the GameListener events the session fires on the worker are posted back to the event
+ * dispatch thread with SwingUtilities.invokeLater. While a move is being worked out the view shows that it is
+ * thinking. A column click or redo in that time is rejected with a message and changes nothing, and an undo cancels
+ * the move being worked out and then takes back the move before it.
+ * <p>
+ * Cancelling never drops a piece of work, since some of them also set up the game. Every piece of work gets a ticket
+ * when it is submitted, and an undo stops every ticket up to the last one: the worker is interrupted, which ends the
+ * search it is running, and a stopped piece of work that has not started yet runs with its thread interrupted, so it
+ * still changes the settings it was given but no computer seat moves in it.
+ * <p>
+ * Every seat is played by a person or by a computer player of the SeatKind chosen on the setup screen. The kinds are
+ * saved with the game, so a resumed game keeps them.
  */
-public class ConnectXController {
+public class ConnectXController implements GameListener {
 
-    //our current game that is being played
-    private IGameBoard curGame;
+    //the game that is being played, which owns the board, the turns and the computer seats
+    private GameSession session;
 
     //The screen that provides our view
     private ConnectXView screen;
@@ -22,13 +47,32 @@ public class ConnectXController {
 
     public static final int START = 0;
 
-    private int numPlayers;
+    //the tokens of every seat in turn order. The search code uses the same order so that
+    //a token always maps to the same index
+    static final char [] PLAYER_TOKENS = {'X', 'O', 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H'};
+
+    //the message for the current turn, which a hint is added to. Only used on the event dispatch thread
+    private String turnMessage = "";
 
-    private int playerTurn = 0;
+    //the one thread that changes the session, and the last piece of work given to it
+    private volatile Thread workerThread;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "connectx-worker");
+        thread.setDaemon(true);
+        workerThread = thread;
+        return thread;
+    });
+    private Future<?> pending;
 
-    private boolean newGame = false;
+    //the ticket of the last piece of work submitted, and the last ticket that was stopped
+    private int lastTicket;
+    private volatile int stoppedTicket;
 
-    private char [] playerTokens = {'X', 'O', 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H'};
+    //the kind of player of every seat, saved with the game
+    private SeatKind [] seats;
+
+    //the setup screen to go back to in single window mode, made the first time it is needed if this game was resumed
+    private SetupController setup;
 
     /**
      * @param model the board implementation
@@ -36,69 +80,384 @@ public class ConnectXController {
      * @post the controller will respond to actions on the view using the model.
      */
     ConnectXController(IGameBoard model, ConnectXView view, int np) {
-        this.curGame = model;
         this.screen = view;
-        numPlayers = np;
+        session = new GameSession(model, PLAYER_TOKENS, np);
+        session.setShowHints(true);
+        session.addListener(this);
+        seats = new SeatKind[np];
+        Arrays.fill(seats, SeatKind.HUMAN);
+    }
+
+    /**
+     * @param kinds the kind of player of every seat, in turn order
+     * @pre kinds.length = numPlayers
+     * @post every seat that is not HUMAN is played by a new computer player of its kind, and every HUMAN seat by a
+     * person. If it is a computer seat's turn it moves right away
+     */
+    public void setSeats(SeatKind [] kinds) {
+
+        IGameBoard board = session.getBoard();
+        IComputerPlayer [] players = new IComputerPlayer[kinds.length];
+
+        for (int seat = START; seat < kinds.length; seat++) {
+
+            players[seat] = kinds[seat].create(board.getNumRows(), board.getNumColumns(), board.getNumToWin(), kinds.length);
+
+        }
+
+        seats = kinds.clone();
+
+        //one piece of work, so every seat is set even if an undo stops the computer moves in it
+        submit(() -> {
+
+            for (int seat = START; seat < players.length; seat++) session.setComputerPlayer(seat, players[seat]);
+
+        });
+
+    }
+
+    /**
+     * @param seat      the index of the player in turn order
+     * @param player    the computer player that plays for seat, or null to make it a human seat again
+     * @pre 0 <= seat < numPlayers
+     * @post the seat will be played by player. If it is already seat's turn the computer moves right away
+     */
+    public void setComputerPlayer(int seat, IComputerPlayer player) {
+
+        submit(() -> session.setComputerPlayer(seat, player));
+
+    }
+
+    /**
+     * @param show true to tell a human player the outcome with perfect play near the end of a two player game
+     * @post hints are shown after every move once EndgameSolver.DEFAULT_MAX_EMPTY_CELLS or fewer cells are empty
+     */
+    public void setShowHints(boolean show) {
+
+        submit(() -> session.setShowHints(show));
+
+    }
+
+    /**
+     * @param on true to end a two player game as soon as its outcome with perfect play is known
+     * @post near the end of a two player game the solved result is declared instead of being played out
+     */
+    public void setAdjudicate(boolean on) {
+
+        submit(() -> session.setAdjudicate(on));
+
     }
 
     /**
      * @param col the column of the activated button
      * @post will allow the player to place a token in the column if it is not full, otherwise it will display an error
      * and allow them to pick again. Will check for a win as well. If a player wins it will allow for them to play another
-     * game hitting any button
+     * game hitting any button. After a human move every computer seat that is next in line plays its move.
+     * Clicks are ignored while it is a computer seat's turn, and rejected while the last move is still being worked out.
      */
     public void processButtonClick(int col) {
 
-        BoardPosition position;
+        if (isBusy()){
+
+            screen.setMessage(turnMessage + " Please wait for the move to finish.");
+            return;
 
-        if (newGame){
+        }
+
+        //the worker is idle, so the session can be read here
+        if (session.isOver()){
 
             newGame();
-            newGame = false;
+            return;
 
         }
 
-        if (curGame.checkIfFree(col)){
+        submit(() -> session.play(col));
+
+    }
 
-            for (int i = START; i < curGame.getNumRows(); i++){
+    /**
+     * @post the game is saved to GameSnapshot.DEFAULT_FILE if it is still going, so it can be resumed the next time
+     * the program starts. A finished game deletes the saved one instead.
+     */
+    public void processWindowClose() {
 
-                position = new BoardPosition(i, col);
+        //a computer move that is still being worked out is dropped, the seat moves again when the game is resumed
+        stopWork();
 
-                if (curGame.whatsAtPos(position) == ' '){
+        Future<?> save = worker.submit(() -> {
 
-                    screen.setMarker(i, col, playerTokens[playerTurn]);
-                    i = curGame.getNumRows();
+            try {
 
-                }
+                if (session.isOver()) GameSnapshot.delete(GameSnapshot.DEFAULT_FILE);
+                else GameSnapshot.save(session, seats, GameSnapshot.DEFAULT_FILE);
+
+            } catch (IOException e) {
+
+                System.err.println("Could not save the game: " + e.getMessage());
 
             }
 
-            curGame.placeToken(playerTokens[playerTurn], col);
+        });
 
-            if (curGame.checkForWin(col)){
+        //the program exits after this, so wait for the save
+        try {
 
-                screen.setMessage("Player " + playerTokens[playerTurn] + " has won! Press any button to play again.");
-                newGame = true;
+            save.get();
 
-            }
-            else if (curGame.checkTie()){
+        } catch (InterruptedException | ExecutionException e) {
 
-                screen.setMessage("It's a tie! Press any button to play again.");
-                newGame = true;
+            System.err.println("Could not save the game: " + e);
 
-            }
-            else {
+        }
+
+        worker.shutdownNow();
+
+    }
+
+    /**
+     * @param snapshot a saved game with the same board size and number of players as this game
+     * @post the board and the screen show the saved game, it is the saved seat's turn and every seat is played by the
+     * saved kind of player
+     */
+    public void resume(GameSnapshot snapshot) {
+
+        submit(() -> snapshot.restore(session, session.getBoard()));
+        setSeats(snapshot.getSeats());
 
-                playerTurn++;
+    }
+
+    /**
+     * @post the move being worked out, if any, is cancelled. Then the last move, and any computer moves before it, are
+     * taken back and it is the turn of the player who made it. This also works after a game has ended.
+     */
+    public void processUndo() {
+
+        stopWork();
+
+        submit(session::undo);
+
+    }
+
+    /**
+     * @post the last move taken back is played again, if no other move has been played since. Rejected while a move
+     * is being worked out
+     */
+    public void processRedo() {
 
-                if (playerTurn == numPlayers) playerTurn = START;
+        if (isBusy()){
 
-                screen.setMessage("It is " + playerTokens[playerTurn] + "'s turn.");
+            screen.setMessage(turnMessage + " Please wait for the move to finish.");
+            return;
+
+        }
+
+        submit(session::redo);
+
+    }
+
+    /**
+     * @return true if the worker has not finished the last piece of work it was given
+     */
+    private boolean isBusy() {
+
+        return pending != null && !pending.isDone();
+
+    }
+
+    /**
+     * @post every piece of work submitted so far is stopped: the one running is interrupted, and the rest run without
+     * any computer moves
+     */
+    private void stopWork() {
+
+        if (!isBusy()) return;
+
+        stoppedTicket = lastTicket;
+
+        Thread thread = workerThread;
+
+        if (thread != null) thread.interrupt();
+
+    }
+
+    /**
+     * @param work changes to the session, run on the worker after everything submitted before it
+     * @post the view shows it is thinking until work is done
+     */
+    private void submit(Runnable work) {
+
+        int ticket = ++lastTicket;
+
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+
+            //a stopped piece of work runs interrupted, so its searches return at once; any other starts clear
+            if (ticket <= stoppedTicket) Thread.currentThread().interrupt();
+            else Thread.interrupted();
+
+            work.run();
+
+        }, null) {
+            @Override
+            protected void done() {
+
+                SwingUtilities.invokeLater(() -> finished(this));
 
             }
+        };
+
+        pending = task;
+        screen.setThinking(true);
+        worker.execute(task);
+
+    }
+
+    /**
+     * Called on the event dispatch thread once task is done
+     */
+    private void finished(Future<?> task) {
+
+        //a newer piece of work is still running
+        if (task != pending) return;
+
+        screen.setThinking(false);
+
+        try {
+
+            task.get();
+
+        } catch (InterruptedException | ExecutionException e) {
+
+            System.err.println("The move failed: " + e.getCause());
 
         }
-        else screen.setMessage("Column is full. It is " + playerTokens[playerTurn] + "'s turn.");
+
+    }
+
+    //The session fires these on the worker, so each one is posted to the event dispatch thread
+
+    @Override
+    public void tokenRemoved(char token, int row, int column) {
+
+        SwingUtilities.invokeLater(() -> screen.setMarker(row, column, ' '));
+
+    }
+
+    @Override
+    public void tokenPlaced(char token, int row, int column) {
+
+        SwingUtilities.invokeLater(() -> screen.setMarker(row, column, token));
+
+    }
+
+    @Override
+    public void turnStarted(char token, int seat) {
+
+        SwingUtilities.invokeLater(() -> {
+
+            turnMessage = "It is " + token + "'s turn.";
+
+            screen.setMessage(turnMessage);
+
+        });
+
+    }
+
+    @Override
+    public void columnFull(char token, int column) {
+
+        SwingUtilities.invokeLater(() -> screen.setMessage("Column is full. It is " + token + "'s turn."));
+
+    }
+
+    @Override
+    public void endgameSolved(char token, int result, int column) {
+
+        SwingUtilities.invokeLater(() -> {
+
+            if (result == EndgameSolver.WIN) screen.setMessage(turnMessage + " " + token + " can force a win in column " + column + ".");
+            else if (result == EndgameSolver.DRAW) screen.setMessage(turnMessage + " Perfect play leads to a draw.");
+            else screen.setMessage(turnMessage + " " + token + " loses against perfect play.");
+
+        });
+
+    }
+
+    @Override
+    public void gameWon(char token, boolean adjudicated) {
+
+        SwingUtilities.invokeLater(() -> {
+
+            if (adjudicated) screen.setMessage("Player " + token + " wins by adjudication! Press any button to play again.");
+            else screen.setMessage("Player " + token + " has won! Press any button to play again.");
+
+        });
+
+    }
+
+    @Override
+    public void gameTied(boolean adjudicated) {
+
+        SwingUtilities.invokeLater(() -> {
+
+            if (adjudicated) screen.setMessage("It's a draw by adjudication! Press any button to play again.");
+            else screen.setMessage("It's a tie! Press any button to play again.");
+
+        });
+
+    }
+
+    /**
+     * @param setup the setup screen that started this game
+     * @post a new game goes back to setup's screen instead of building a new one
+     */
+    void setSetupController(SetupController setup) {
+
+        this.setup = setup;
+
+    }
+
+    /**
+     * @return true if a new game with these settings can be played on this game's board and screen
+     */
+    boolean canRestart(int rows, int cols, int numWin, int players) {
+
+        //the board's size never changes, so it can be read while the worker is busy
+        IGameBoard board = session.getBoard();
+
+        return ConnectXWindow.SINGLE_WINDOW && board.getNumRows() == rows && board.getNumColumns() == cols
+                && board.getNumToWin() == numWin && session.getNumPlayers() == players;
+
+    }
+
+    /**
+     * @param kinds the kind of player of every seat of the new game
+     * @post the board and the screen are emptied in place and a new game has started on them, played by kinds
+     */
+    void restart(SeatKind [] kinds) {
+
+        screen.reset();
+
+        //this game is over, so no computer seat moves until the new game has started
+        setSeats(kinds);
+
+        submit(() -> {
+
+            IGameBoard board = session.getBoard();
+
+            board.clearBoard();
+            session.newGame(board);
+
+        });
+
+    }
+
+    /**
+     * @post the worker is stopped, this game will not be played again
+     */
+    void close() {
+
+        worker.shutdownNow();
 
     }
 
@@ -106,9 +465,20 @@ public class ConnectXController {
      * This method will start a new game by returning to the setup screen and controller
      */
     private void newGame() {
-        //close the current screen
-        screen.dispose();
-        //start back at the set up menu
+        //in single window mode the setup screen is shown again and this game is kept in case the next one is the same
+        if (ConnectXWindow.SINGLE_WINDOW) {
+            if (setup == null) {
+                SetupView setupView = new SetupView();
+                setup = new SetupController(setupView);
+                setupView.registerObserver(setup);
+            }
+            setup.showAgain(this);
+            return;
+        }
+
+        //this game is finished, so its worker can go
+        worker.shutdownNow();
+        //start back at the set up menu, which replaces the current screen's window
         SetupView screen = new SetupView();
         SetupController controller = new SetupController(screen);
         screen.registerObserver(controller);
@@ -3,30 +3,47 @@ package cpsc2150.extendedConnectX;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
 import javax.swing.*;
+import javax.swing.Timer;
 
 import java.util.*;
 import java.util.List;
 
 /**
  * This class is the view of our Connect X
- * our view has a message area, and a list of buttons
- * the buttons will be arranges in a ROWS_IN_BUTTON_PANEL x COLUMNS_IN_BUTTON_PANEL Grid
- * Players will use another set of buttons above the grid to select the column to place in
+ * our view has a message area, and a BoardCanvas that paints the ROWS_IN_BUTTON_PANEL x COLUMNS_IN_BUTTON_PANEL Grid
+ * Players will use another set of buttons above the grid, or click on the grid, to select the column to place in
+ * The grid is in a scroll pane so large boards can be scrolled and zoomed (ctrl + mouse wheel or the zoom buttons)
+ * and a minimap below it shows how full every column is
+ * Placed tokens fall into their cell, but the board and its cells are updated right away
+ * The view is a panel that ConnectXWindow shows, and it can be reset for another game of the same size
  * All events will be passed to the controller
  * <p>
  * You do not need to make any changes to this code, but you do need to understand much of what is happening
  */
 
 
-public class ConnectXView extends JFrame implements ActionListener {
+public class ConnectXView extends JPanel implements ActionListener {
 
     private ConnectXController controller;
 
     private final JTextArea message;
-    private final List<JButton> buttons;
+    private final BoardCanvas board;
+    private final BoardMinimap minimap;
+    private final JScrollPane scroller;
+    private final JPanel colButtonPanel;
     private final List<JButton> colButtons;
+    private final JButton undoButton;
+    private final JButton redoButton;
+    private final JButton zoomOutButton;
+    private final JButton zoomInButton;
+    private final JProgressBar thinking;
+    private final Timer thinkingDelay;
 
     private static final int LINES_IN_TEXT = 4, LINE_TEXT_LENGTHS = 20;
     private static int ROWS_IN_BUTTON_PANEL;
@@ -34,6 +51,15 @@ public class ConnectXView extends JFrame implements ActionListener {
     private static int COLUMNS_IN_BUTTON_PANEL;
     private float fontSize = 40;
 
+    //the column buttons are hidden once the cells are narrower than this, and players click on the grid instead
+    private static final int MIN_BUTTON_WIDTH = 30;
+    private static final int CELL_SIZE = 50;
+    private static final double ZOOM_STEP = 1.25;
+    //moves that finish faster than this never show the thinking indicator, so it doesn't flicker
+    private static final int THINKING_DELAY = 150;
+    //tokens fall into place unless the program is started with -Dconnectx.animateDrops=false
+    private static final boolean ANIMATE_DROPS = Boolean.parseBoolean(System.getProperty("connectx.animateDrops", "true"));
+
     /**
      * @param row the number of rows you want in the tic tac toe grid
      * @param col the number of columns you want in the tic tac toe grid
@@ -42,8 +68,8 @@ public class ConnectXView extends JFrame implements ActionListener {
      * @post a functional screen with a row x col grid of buttons will be created
      */
     public ConnectXView(int row, int col) {
-        //call super constructor to make JFrame
-        super("Connect X Game");
+        //call super constructor to make the panel, the board gets all the extra space
+        super(new BorderLayout());
         ROWS_IN_BUTTON_PANEL = row;
         COLUMNS_IN_BUTTON_PANEL = col;
 
@@ -64,67 +90,120 @@ public class ConnectXView extends JFrame implements ActionListener {
             button.setMinimumSize(new Dimension(50, 50));
             button.setMaximumSize(new Dimension(50, 50));
             button.setFont(message.getFont().deriveFont(fontSize));
+            button.setMargin(new Insets(0, 0, 0, 0));
             colButtons.add(button);
         }
 
-        //Add buttons to our list of buttons
-        //These buttons will be used to create our grid for our game board
-        //Buttons would not generally be used like this, however its an easy way to get nice rectangular cells for our grid
+        //buttons to take back a move and to play it again
+        undoButton = new JButton("Undo");
+        undoButton.setFont(message.getFont().deriveFont(fontSize));
+        redoButton = new JButton("Redo");
+        redoButton.setFont(message.getFont().deriveFont(fontSize));
+        zoomOutButton = new JButton("-");
+        zoomOutButton.setFont(message.getFont().deriveFont(fontSize));
+        zoomInButton = new JButton("+");
+        zoomInButton.setFont(message.getFont().deriveFont(fontSize));
 
-        buttons = new ArrayList<JButton>();
-        for (int i = 0; i < ROWS_IN_BUTTON_PANEL * COLUMNS_IN_BUTTON_PANEL; i++) {
-            //these buttons are spaces on the board that start empty
-            JButton button = new JButton("");
-            button.setPreferredSize(new Dimension(50, 50));
-            button.setMinimumSize(new Dimension(50, 50));
-            button.setMaximumSize(new Dimension(50, 50));
-            button.setFont(message.getFont().deriveFont(fontSize));
-            //set enabled to false. we don't want players clicking these buttons
-            //we don't register as an observer because we only use these buttons to display our board
-            button.setEnabled(false);
-            buttons.add(button);
-        }
+        //one component paints the whole grid for our game board, so large boards don't need a button per cell
+        //it only paints the cells that are scrolled into view
+        board = new BoardCanvas(ROWS_IN_BUTTON_PANEL, COLUMNS_IN_BUTTON_PANEL, CELL_SIZE);
+        board.setAnimated(ANIMATE_DROPS);
+        minimap = new BoardMinimap(ROWS_IN_BUTTON_PANEL, COLUMNS_IN_BUTTON_PANEL);
+        scroller = new JScrollPane(board);
 
         //create layout for the screen
-        this.setLayout(new GridLayout(ROWS_IN_BUTTON_PANEL + 2, 1));
+        JPanel top = new JPanel(new BorderLayout());
         //add our message box on top
-        this.add(message);
+        top.add(message, BorderLayout.CENTER);
+        //and next to it a bar that shows while a move is being worked out
+        thinking = new JProgressBar();
+        thinking.setIndeterminate(true);
+        thinking.setString("Thinking...");
+        thinking.setStringPainted(true);
+        thinking.setVisible(false);
+        top.add(thinking, BorderLayout.SOUTH);
+        thinkingDelay = new Timer(THINKING_DELAY, e -> {
+            thinking.setVisible(true);
+            this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        });
+        thinkingDelay.setRepeats(false);
 
         //create a panel with buttons to select a column
-        JPanel colButtonPanel = new JPanel(new GridLayout(1, COLUMNS_IN_BUTTON_PANEL));
+        colButtonPanel = new JPanel(new GridLayout(1, COLUMNS_IN_BUTTON_PANEL));
         for (int i = 0; i < COLUMNS_IN_BUTTON_PANEL; i++) {
             //register as an observer
             colButtons.get(i).addActionListener(this);
             //add to the panel
             colButtonPanel.add(colButtons.get(i));
         }
-        this.add(colButtonPanel);
-
-        //add our rows of buttons for the board
-        for (int i = 0; i < ROWS_IN_BUTTON_PANEL; i++) {
-            //create a panel to hold a row of buttons
-            JPanel buttonPanel = new JPanel(new GridLayout(1, COLUMNS_IN_BUTTON_PANEL));
-            for (int j = 0; j < COLUMNS_IN_BUTTON_PANEL; j++) {
-                //add a button in each column
-                int index = (i * COLUMNS_IN_BUTTON_PANEL) + j;
-                //add the screen as a listener
-                //buttons.get(index).addActionListener(this);
-                buttonPanel.add(buttons.get(index));
+        this.add(top, BorderLayout.NORTH);
+
+        //add the board, the column buttons scroll sideways with it
+        scroller.setColumnHeaderView(colButtonPanel);
+        this.add(scroller, BorderLayout.CENTER);
+
+        //keep the column buttons lined up with the columns of the board
+        board.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                fitColumnButtons();
             }
-            //row is complete, add it to out screen
-            this.add(buttonPanel);
-        }
+        });
+        //clicking on the grid also selects a column
+        board.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                controller.processButtonClick(board.columnAt(e.getX()));
+            }
+        });
+        //ctrl + mouse wheel zooms around the mouse, the wheel alone is passed on to the scroll pane to scroll
+        board.addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                zoom(e.getWheelRotation() < 0 ? ZOOM_STEP : 1 / ZOOM_STEP, e.getPoint());
+            }
+            else {
+                scroller.dispatchEvent(SwingUtilities.convertMouseEvent(board, e, scroller));
+            }
+        });
+        scroller.getViewport().addChangeListener(e -> updateMinimap());
+        minimap.setColumnListener(this::scrollToColumn);
 
-        // Start the main application window --------------------------------
+        //add the minimap, then the undo, redo and zoom buttons below the board
+        JPanel bottom = new JPanel(new BorderLayout());
+        JPanel historyPanel = new JPanel(new GridLayout(1, 4));
+        undoButton.addActionListener(this);
+        redoButton.addActionListener(this);
+        zoomOutButton.addActionListener(this);
+        zoomInButton.addActionListener(this);
+        historyPanel.add(undoButton);
+        historyPanel.add(redoButton);
+        historyPanel.add(zoomOutButton);
+        historyPanel.add(zoomInButton);
+        bottom.add(minimap, BorderLayout.NORTH);
+        bottom.add(historyPanel, BorderLayout.SOUTH);
+        this.add(bottom, BorderLayout.SOUTH);
 
-        /*
-         * Make sure the main window is appropriately sized for the widgets in
-         * it, that it exits this program when closed, and that it becomes
-         * visible to the user now
-         */
-        this.pack();
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        this.setVisible(true);
+        //show the screen in the main window
+        display();
+    }
+
+    /**
+     * @post this screen is shown in the main window, and closing the window lets the controller save the game first
+     */
+    public void display() {
+        ConnectXWindow.show(this, "Connect X Game", () -> controller.processWindowClose());
+    }
+
+    /**
+     * @post every cell is empty, the message is back to the first turn and the screen is shown again, without
+     * building any of its components again
+     */
+    public void reset() {
+        board.clear();
+        minimap.clear();
+        setThinking(false);
+        setMessage("It is X\'s turn. ");
+        display();
     }
 
     /**
@@ -147,13 +226,6 @@ public class ConnectXView extends JFrame implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent event) {
-        /*
-         * Set cursor to indicate computation on-going; this matters only if
-         * processing the event might take a noticeable amount of time as seen
-         * by the user
-         */
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
         /*
          * Determine which event has occurred that we are being notified of by
          * this callback; in this case, the source of the event (i.e, the widget
@@ -172,12 +244,34 @@ public class ConnectXView extends JFrame implements ActionListener {
             //call the controller event
             controller.processButtonClick(column);
         }
+        else if (source == undoButton) {
+            controller.processUndo();
+        }
+        else if (source == redoButton) {
+            controller.processRedo();
+        }
+        else if (source == zoomOutButton || source == zoomInButton) {
+            //zoom around the middle of what is in view
+            Rectangle view = scroller.getViewport().getViewRect();
+            zoom(source == zoomInButton ? ZOOM_STEP : 1 / ZOOM_STEP, new Point(view.x + view.width / 2, view.y + view.height / 2));
+        }
+    }
 
-        /*
-         * Set the cursor back to normal (because we changed it at the beginning
-         * of the method body)
-         */
-        this.setCursor(Cursor.getDefaultCursor());
+    /**
+     * @param on true while the controller is working out a move in the background
+     *
+     * @post if on stays true for THINKING_DELAY milliseconds, a thinking bar and the wait cursor are shown until it is
+     * set to false
+     */
+    public void setThinking(boolean on) {
+        if (on) {
+            thinkingDelay.restart();
+        }
+        else {
+            thinkingDelay.stop();
+            thinking.setVisible(false);
+            this.setCursor(Cursor.getDefaultCursor());
+        }
     }
 
     /**
@@ -190,17 +284,98 @@ public class ConnectXView extends JFrame implements ActionListener {
     }
 
     /**
-     * @param row    the row of the button in our grid
-     * @param col    the column of the button in our grid
-     * @param player the player who will now claim that button
+     * @param row    the row of the cell in our grid
+     * @param col    the column of the cell in our grid
+     * @param player the player who will now claim that cell
      *
      * @pre 0 <= row < ROWS_IN_BUTTON_PANEL and 0 < = col < = COLUMNS_IN_BUTTON_PANEL
-     * @post the button at row, col will display the character for the player
+     * @post the cell at row, col will display the character for the player
      */
     public void setMarker(int row, int col, char player) {
-        //find index, remember the indexing starts in top left
-        int index = ((ROWS_IN_BUTTON_PANEL - (row + 1)) * COLUMNS_IN_BUTTON_PANEL) + col;
-        //set the text of the button
-        buttons.get(index).setText(Character.toString(player));
+        //the canvas counts rows from the bottom like the model and repaints only this cell
+        board.setMarker(row, col, player);
+        //tokens are only placed on or taken off the top of a column, so row tells us its new height
+        if (player == ' ') {
+            minimap.setColumn(col, row, row > 0 ? board.getMarker(row - 1, col) : ' ');
+        }
+        else {
+            minimap.setColumn(col, row + 1, player);
+        }
+    }
+
+    /**
+     * @param factor how much bigger to make the cells
+     * @param anchor the point on the board that should stay under the same spot in the viewport
+     *
+     * @post the cells are factor times bigger, within the limits of BoardCanvas, and the viewport is scrolled to keep anchor in place
+     */
+    private void zoom(double factor, Point anchor) {
+        int oldSize = board.getCellSize();
+        //always change by at least a pixel so small cells can still zoom in
+        int newSize = (int) Math.round(oldSize * factor);
+        if (newSize == oldSize) {
+            newSize += factor > 1 ? 1 : -1;
+        }
+        board.setCellSize(newSize);
+        if (board.getCellSize() == oldSize) {
+            return;
+        }
+
+        //the anchor is scaled by how much the cells actually grew
+        JViewport viewport = scroller.getViewport();
+        Point view = viewport.getViewPosition();
+        double scale = (double) board.getCellSize() / oldSize;
+        int x = (int) Math.round(anchor.x * scale) - (anchor.x - view.x);
+        int y = (int) Math.round(anchor.y * scale) - (anchor.y - view.y);
+        scroller.revalidate();
+        //the new size is only laid out after revalidate, so scroll once that has happened
+        SwingUtilities.invokeLater(() -> {
+            Dimension size = board.getSize();
+            Dimension extent = viewport.getExtentSize();
+            viewport.setViewPosition(new Point(Math.max(0, Math.min(x, size.width - extent.width)), Math.max(0, Math.min(y, size.height - extent.height))));
+        });
+    }
+
+    /**
+     * @post the column buttons are as wide as the board's columns, or hidden if that is too narrow to click
+     */
+    private void fitColumnButtons() {
+        boolean show = board.getWidth() / COLUMNS_IN_BUTTON_PANEL >= MIN_BUTTON_WIDTH;
+        colButtonPanel.setPreferredSize(new Dimension(board.getWidth(), CELL_SIZE));
+        colButtonPanel.setVisible(show);
+        scroller.getColumnHeader().setVisible(show);
+        colButtonPanel.revalidate();
+        updateMinimap();
+    }
+
+    /**
+     * @post the minimap outlines the cells that are in the viewport
+     */
+    private void updateMinimap() {
+        Rectangle view = scroller.getViewport().getViewRect();
+        if (board.getWidth() == 0 || board.getHeight() == 0) {
+            return;
+        }
+        //convert pixels to cells, remember the canvas draws row 0 at the bottom
+        int cellWidth = Math.max(1, board.getWidth() / COLUMNS_IN_BUTTON_PANEL);
+        int cellHeight = Math.max(1, board.getHeight() / ROWS_IN_BUTTON_PANEL);
+        int firstColumn = Math.min(COLUMNS_IN_BUTTON_PANEL - 1, view.x / cellWidth);
+        int lastColumn = Math.min(COLUMNS_IN_BUTTON_PANEL - 1, (view.x + view.width - 1) / cellWidth);
+        int topLine = Math.min(ROWS_IN_BUTTON_PANEL - 1, view.y / cellHeight);
+        int bottomLine = Math.min(ROWS_IN_BUTTON_PANEL - 1, (view.y + view.height - 1) / cellHeight);
+        minimap.setVisibleCells(firstColumn, lastColumn, ROWS_IN_BUTTON_PANEL - 1 - bottomLine, ROWS_IN_BUTTON_PANEL - 1 - topLine);
+    }
+
+    /**
+     * @param col the column to bring into view
+     *
+     * @post the viewport is scrolled sideways so col is in the middle of it, as far as the board allows
+     */
+    private void scrollToColumn(int col) {
+        JViewport viewport = scroller.getViewport();
+        Point view = viewport.getViewPosition();
+        int extent = viewport.getExtentSize().width;
+        int x = board.columnX(col) - extent / 2;
+        viewport.setViewPosition(new Point(Math.max(0, Math.min(x, board.getWidth() - extent)), view.y));
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package cpsc2150.extendedConnectX;
+
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.*;
+
+/**
+ * The window that the setup screen and the game screen are shown in.
+ *
+ * By default the program keeps one window and swaps the screen inside it, so going from a
+ * finished game back to the setup screen and into the next game never builds a new frame,
+ * and the screens themselves can be shown again instead of being built again. Starting the
+ * program with -Dconnectx.singleWindow=false gives every screen its own window instead, and
+ * disposes the last one, the way the program used to.
+ *
+ * The first time a window is shown it tells ConnectXApp, which measures the cold start.
+ *
+ * @invariant       [current is the window on screen, or null before the first screen is shown]
+ */
+public class ConnectXWindow extends JFrame {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final boolean SINGLE_WINDOW = Boolean.parseBoolean(System.getProperty("connectx.singleWindow", "true"));
+
+    private static ConnectXWindow current;
+
+    //called when the window is closed, or null
+    private Runnable onClose;
+
+    private ConnectXWindow() {
+        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (onClose != null) {
+                    onClose.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * @param screen  the screen to show.
+     * @param title   the title of the window.
+     * @param onClose called before the program exits when the window is closed, or null.
+     *
+     * @post screen is the only screen in the window, and the window is sized to it if it was not already showing it
+     */
+    public static void show(JComponent screen, String title, Runnable onClose) {
+        if (current == null || !SINGLE_WINDOW) {
+            if (current != null) {
+                current.dispose();
+            }
+            current = new ConnectXWindow();
+            if (!ConnectXApp.isStarted()) {
+                //the frame is interactive once its first events have been handled
+                current.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowOpened(WindowEvent e) {
+                        SwingUtilities.invokeLater(ConnectXApp::started);
+                    }
+                });
+            }
+        }
+
+        current.setTitle(title);
+        current.onClose = onClose;
+
+        //a screen that is shown again keeps its size and is only laid out again
+        if (current.getContentPane() != screen) {
+            current.setContentPane(screen);
+            current.pack();
+        }
+        else {
+            screen.revalidate();
+            screen.repaint();
+        }
+
+        current.setVisible(true);
+    }
+}
@@ -0,0 +1,440 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.Arrays;
+
+/**
+ * Solves two player positions near the end of the game: it finds out whether the player to
+ * move wins, draws or loses against perfect play, and which column gets that result.
+ *
+ * The search only tells three results apart, so it runs with null windows: one search
+ * asks "does side win?" and, if not, a second one asks "does side at least draw?". Every
+ * proven bound is cached in a table of longs whose size is given in bytes, so a position
+ * reached by different move orders is solved once. The cache key includes the board
+ * settings, so one solver can be used on boards of any size and numToWin. Columns that win at once are played
+ * first. A column where the other player would win next must be played, and two such
+ * columns lose. The rest are tried with the best column cached for the position first,
+ * then by how much a column adds to the player's own windows and takes away from the
+ * other's, with columns that let the other player win on top of them last.
+ *
+ * The search plays on its own GameBoard holding the same tokens, so the board it is given
+ * is never changed and any line counts kept on it are not updated at every node.
+ *
+ * A solve gives up after nodeBudget positions and reports UNKNOWN, which keeps hints in
+ * the GUI quick on positions that still have too many empty cells.
+ *
+ * @invariant       nodeBudget >= 1 AND
+ *                  cache.length is a power of 2
+ */
+public class EndgameSolver implements IComputerPlayer {
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    public static final int UNKNOWN = 2;
+
+    public static final int DEFAULT_MAX_EMPTY_CELLS = 24;
+    public static final long DEFAULT_CACHE_BYTES = 4L * 1024 * 1024;
+    public static final long DEFAULT_NODE_BUDGET = 500000;
+
+    public static final int NO_MOVE = -1;
+
+    // Layout of a cache long: the result, its flag and the best column in the lowest bits,
+    // the key above them
+    private static final int FLAG_SHIFT = 2;
+    private static final int MOVE_SHIFT = 4;
+    private static final long VALUE_MASK = 0x3;
+    private static final long FLAG_MASK = 0x3;
+    private static final long MOVE_MASK = 0x7F;
+    private static final long KEY_MASK = ~0x7FFL;
+    private static final long EMPTY = 0;
+    private static final int EXACT = 1;
+    private static final int LOWER_BOUND = 2;
+    private static final int UPPER_BOUND = 3;
+
+    private static final int BYTES_PER_ENTRY = 8;
+
+    private static final int DIRECTIONS = 4;
+    private static final int [] ROW_STEP = {0, 1, 1, 1};
+    private static final int [] COLUMN_STEP = {1, 0, 1, -1};
+
+    private final long [] cache;
+    private final int mask;
+    private final long nodeBudget;
+    private final IComputerPlayer fallback;
+
+    // Per solve state
+    private IGameBoard board;
+    private int [] order;
+    private int [][] moves;
+    private int [][] scores;
+    private boolean aborted;
+    private long nodes;
+    private int bestColumn;
+
+    /**
+     * Creates a solver with DEFAULT_CACHE_BYTES of cache and DEFAULT_NODE_BUDGET that plays
+     * like a NegamaxAI when it can not solve a position.
+     *
+     * @post    [a solver with the default sizes is created]
+     */
+    public EndgameSolver(){ this(DEFAULT_CACHE_BYTES, DEFAULT_NODE_BUDGET, new NegamaxAI()); }
+
+    /**
+     * @param cacheBytes    the most memory the cache of proven results may use.
+     * @param nodeBudget    the most positions one solve may visit before giving up.
+     * @param fallback      the player that selectColumn asks when a solve gives up.
+     * @pre                 cacheBytes >= BYTES_PER_ENTRY AND nodeBudget >= 1 AND fallback != null
+     * @post                [the cache holds the largest power of 2 entries that fits in cacheBytes]
+     */
+    public EndgameSolver(long cacheBytes, long nodeBudget, IComputerPlayer fallback){
+
+        long entries = Long.highestOneBit(Math.max(cacheBytes / BYTES_PER_ENTRY, 1));
+
+        entries = Math.min(entries, Integer.highestOneBit(Integer.MAX_VALUE));
+
+        cache = new long[(int) entries];
+        mask = (int) entries - 1;
+        this.nodeBudget = nodeBudget;
+        this.fallback = fallback;
+
+    }
+
+    /**
+     * Plays the solved best column once DEFAULT_MAX_EMPTY_CELLS or fewer cells are empty and
+     * the position can be solved within the budget, and otherwise the column of the fallback
+     * player. Games of more than two players always go to the fallback player.
+     */
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        if (numPlayers == 2 && emptyCells(board) <= DEFAULT_MAX_EMPTY_CELLS
+                && solve(board, tokens[turn], tokens[(turn + 1) % numPlayers]) != UNKNOWN) return bestColumn;
+
+        return fallback.selectColumn(board, tokens, numPlayers, turn);
+
+    }
+
+    /**
+     * Solves the position for side, who is to move.
+     *
+     * @param board     the position, left unchanged.
+     * @param side      the token of the player to move.
+     * @param other     the token of the other player.
+     * @return          WIN, DRAW or LOSS for side against perfect play, or UNKNOWN if the
+     *                  node budget ran out
+     * @pre             board.checkTie() = false AND nobody has won on board. Positions of any
+     *                  board settings may be solved one after another with the same solver
+     * @post            #board = board AND
+     *                  [getBestColumn() is a column that gets the result, or NO_MOVE if UNKNOWN]
+     */
+    public int solve(IGameBoard board, char side, char other){
+
+        int empty = emptyCells(board);
+
+        this.board = workingCopy(board);
+        order = NegamaxAI.centerFirstOrder(board.getNumColumns());
+        moves = new int[empty + 1][board.getNumColumns()];
+        scores = new int[empty + 1][board.getNumColumns()];
+        aborted = false;
+        nodes = 0;
+        bestColumn = NO_MOVE;
+
+        // First ask whether side wins, then whether side at least draws
+        int result = search(IGameBoard.START, DRAW, WIN, side, other);
+
+        if (!aborted && result < WIN) result = search(IGameBoard.START, LOSS, DRAW, side, other);
+
+        this.board = null;
+
+        if (aborted){
+
+            bestColumn = NO_MOVE;
+            return UNKNOWN;
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * @return      the column found by the last solve, or NO_MOVE if it gave up
+     */
+    public int getBestColumn(){ return bestColumn; }
+
+    /**
+     * @return      the number of positions visited by the last solve
+     */
+    public long getNodesSearched(){ return nodes; }
+
+    /**
+     * Removes every cached result.
+     *
+     * @post    [every position is solved from scratch on the next solve]
+     */
+    public void clear(){ Arrays.fill(cache, EMPTY); }
+
+    /**
+     * @return      the number of blank cells left on board
+     */
+    public static int emptyCells(IGameBoard board){
+
+        int empty = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++) empty += board.getNumRows() - board.getColumnHeight(c);
+
+        return empty;
+
+    }
+
+    /**
+     * Scores side's token at <r, c> for move ordering by looking only at the windows through
+     * that cell: a window side can still complete gains 2k + 1 when it goes from k to k + 1
+     * tokens, and a window only other could complete gains k * k when it is blocked.
+     *
+     * @pre     side is at <r, c>
+     */
+    private int gain(int r, int c, char side, char other){
+
+        int n = board.getNumToWin();
+        int gain = 0;
+
+        for (int d = IGameBoard.START; d < DIRECTIONS; d++){
+
+            int mine = 0;
+            int theirs = 0;
+            int length = 0;
+
+            // Slide a window along the line through <r, c>, from numToWin - 1 cells before it
+            // to numToWin - 1 cells after it
+            for (int k = 1 - n; k < n; k++){
+
+                int rr = r + k * ROW_STEP[d];
+                int cc = c + k * COLUMN_STEP[d];
+
+                if (rr < IGameBoard.MIN_ROW || rr >= board.getNumRows() || cc < IGameBoard.MIN_COLUMN || cc >= board.getNumColumns()){
+
+                    mine = 0;
+                    theirs = 0;
+                    length = 0;
+                    continue;
+
+                }
+
+                char in = board.whatsAtPos(rr, cc);
+
+                if (in == other) theirs++;
+                else if (in != ' ' && k != 0) mine++;
+
+                length++;
+
+                if (length > n){
+
+                    char out = board.whatsAtPos(rr - n * ROW_STEP[d], cc - n * COLUMN_STEP[d]);
+
+                    if (out == other) theirs--;
+                    else if (out != ' ' && k - n != 0) mine--;
+
+                    length = n;
+
+                }
+
+                if (length == n && k >= 0){
+
+                    if (theirs == 0) gain += 2 * mine + 1;
+                    else if (mine == 0) gain += theirs * theirs;
+
+                }
+
+            }
+
+        }
+
+        return gain;
+
+    }
+
+    /**
+     * @return      a new GameBoard with the same size and tokens as board
+     */
+    private static IGameBoard workingCopy(IGameBoard board){
+
+        IGameBoard copy = new GameBoard(board.getNumRows(), board.getNumColumns(), board.getNumToWin());
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            for (int r = IGameBoard.MIN_ROW; r < board.getColumnHeight(c); r++) copy.placeToken(board.whatsAtPos(r, c), c);
+
+        }
+
+        return copy;
+
+    }
+
+    /**
+     * Returns the result of the position for side, who is to move, if it lies inside
+     * (alpha, beta). Otherwise the result is only a bound: at most alpha or at least beta.
+     * At the root the column that reaches the result is left in bestColumn.
+     *
+     * @post    #board = board
+     */
+    private int search(int ply, int alpha, int beta, char side, char other){
+
+        if (++nodes > nodeBudget){
+
+            aborted = true;
+            return DRAW;
+
+        }
+
+        int [] plyMoves = moves[ply];
+        int [] plyScores = scores[ply];
+        int numMoves = IGameBoard.START;
+        long key = NegamaxAI.positionKey(board, side, other);
+        int slot = (int) key & mask;
+        long entry = cache[slot];
+        int cachedMove = NO_MOVE;
+
+        if (entry != EMPTY && (entry & KEY_MASK) == (key & KEY_MASK)){
+
+            int value = (int) (entry & VALUE_MASK) - 1;
+            int flag = (int) ((entry >>> FLAG_SHIFT) & FLAG_MASK);
+
+            cachedMove = (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK) - 1;
+
+            if (ply > IGameBoard.START){
+
+                if (flag == EXACT) return value;
+                if (flag == LOWER_BOUND && value >= beta) return value;
+                if (flag == UPPER_BOUND && value <= alpha) return value;
+
+            }
+
+        }
+
+        // A column that wins right away ends the search
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            int c = order[i];
+
+            if (!board.checkIfFree(c)) continue;
+
+            board.placeToken(side, c);
+
+            boolean won = board.checkForWin(c);
+
+            // The best column found last time is tried first, then the column that gains the
+            // most, and a column that lets other win right on top of it last
+            int score = (c == cachedMove) ? Integer.MAX_VALUE : gain(board.getColumnHeight(c) - 1, c, side, other);
+
+            if (!won && board.checkIfFree(c)){
+
+                board.placeToken(other, c);
+
+                if (board.checkForWin(c)) score = Integer.MIN_VALUE;
+
+                board.removeToken(c);
+
+            }
+
+            board.removeToken(c);
+
+            if (won){
+
+                if (ply == IGameBoard.START) bestColumn = c;
+
+                return WIN;
+
+            }
+
+            // Insertion sort, highest score first and center first among equals
+            int j = numMoves++;
+
+            for (; j > IGameBoard.START && plyScores[j - 1] < score; j--){
+
+                plyMoves[j] = plyMoves[j - 1];
+                plyScores[j] = plyScores[j - 1];
+
+            }
+
+            plyMoves[j] = c;
+            plyScores[j] = score;
+
+        }
+
+        // A column where other would win next has to be blocked, and two of them can not both be
+        int forced = NO_MOVE;
+
+        for (int i = IGameBoard.START; i < numMoves; i++){
+
+            int c = plyMoves[i];
+
+            board.placeToken(other, c);
+
+            boolean threat = board.checkForWin(c);
+
+            board.removeToken(c);
+
+            if (threat && forced != NO_MOVE){
+
+                if (ply == IGameBoard.START) bestColumn = forced;
+
+                return LOSS;
+
+            }
+
+            if (threat) forced = c;
+
+        }
+
+        if (forced != NO_MOVE){
+
+            plyMoves[IGameBoard.START] = forced;
+            numMoves = 1;
+
+        }
+
+        int alphaStart = alpha;
+        int best = LOSS;
+        int bestMove = plyMoves[IGameBoard.START];
+
+        for (int i = IGameBoard.START; i < numMoves; i++){
+
+            int c = plyMoves[i];
+            int score;
+
+            board.placeToken(side, c);
+
+            if (board.checkTie()) score = DRAW;
+            else score = -search(ply + 1, -beta, -alpha, other, side);
+
+            board.removeToken(c);
+
+            if (aborted) return DRAW;
+
+            if (score > best || i == IGameBoard.START){
+
+                best = score;
+                bestMove = c;
+
+                if (ply == IGameBoard.START) bestColumn = c;
+
+            }
+
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+
+        }
+
+        int flag;
+
+        if (best <= alphaStart) flag = UPPER_BOUND;
+        else if (best >= beta) flag = LOWER_BOUND;
+        else flag = EXACT;
+
+        cache[slot] = (key & KEY_MASK) | ((long) (bestMove + 1) << MOVE_SHIFT) | ((long) flag << FLAG_SHIFT) | (best + 1);
+
+        return best;
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+
+/**
+ * The one Swing timer that drives every animation, ticking on the event dispatch thread at
+ * FRAME_MILLIS while anything is animating and stopped otherwise.
+ *
+ * It also counts the frames it ran and the frames it dropped. A tick that comes more than
+ * half a frame late, because the event dispatch thread was busy painting or handling events,
+ * counts the frames it skipped over as dropped. Start the program with
+ * -Dconnectx.logFrames=true to print the counts each time the animations finish.
+ *
+ * @invariant       [timer is running iff canvases is not empty] AND
+ *                  0 <= droppedFrames
+ */
+final class FrameClock {
+
+    // 60 frames a second
+    static final int FRAME_MILLIS = 16;
+    static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private static final boolean LOG = Boolean.getBoolean("connectx.logFrames");
+
+    private static final List<BoardCanvas> canvases = new ArrayList<>();
+    private static final Timer timer = new Timer(FRAME_MILLIS, e -> tick());
+
+    private static long lastTick;
+    private static long frames;
+    private static long droppedFrames;
+
+    private FrameClock(){}
+
+    /**
+     * Ticks canvas every frame until its animate returns false. Called on the event dispatch thread.
+     *
+     * @post    [canvas is animated on every frame] AND [the timer is running]
+     */
+    static void start(BoardCanvas canvas){
+
+        if (!canvases.contains(canvas)) canvases.add(canvas);
+
+        if (!timer.isRunning()){
+
+            lastTick = System.nanoTime();
+            timer.start();
+
+        }
+
+    }
+
+    private static void tick(){
+
+        long now = System.nanoTime();
+        long late = now - lastTick - FRAME_NANOS;
+
+        frames++;
+
+        if (late > FRAME_NANOS / 2) droppedFrames += (late + FRAME_NANOS / 2) / FRAME_NANOS;
+
+        lastTick = now;
+
+        for (int i = canvases.size() - 1; i >= 0; i--){
+
+            if (!canvases.get(i).animate(now)) canvases.remove(i);
+
+        }
+
+        if (canvases.isEmpty()){
+
+            timer.stop();
+
+            if (LOG) System.out.println("Animation frames: " + frames + ", dropped: " + droppedFrames);
+
+        }
+
+    }
+
+    /**
+     * @return      the frames ticked since the program started
+     */
+    static long getFrames(){ return frames; }
+
+    /**
+     * @return      the frames that were due but skipped because a tick came late
+     */
+    static long getDroppedFrames(){ return droppedFrames; }
+
+}
@@ -0,0 +1,490 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append only store of games in the GameRecord format, kept in two memory mapped files:
+ * base.data holds the records back to back after a GameRecord stream header, and base.idx
+ * holds a fixed size entry for every game. Game i is found in O(1) from its entry, and a scan
+ * reads only the index to filter by outcome or board configuration, touching the data pages
+ * of the games that match. Records are read in place out of the mapped data with the
+ * GameRecord methods, so nothing is copied to the heap per game.
+ *
+ * A mapping can be at most 2 GB, so both files are mapped in segments of segmentBytes. A
+ * data segment is mapped with GameRecord.MAX_RECORD_BYTES extra at its end, so a record that
+ * starts in a segment can be read whole from that segment's mapping. When the archive is
+ * closed both files are cut back to their used length, which leaves the data file readable
+ * with GameRecordReader as well.
+ *
+ * Index layout, big endian: MAGIC and VERSION as ints, the game count and data length as
+ * longs, padded to INDEX_HEADER_BYTES. Then one INDEX_ENTRY_BYTES entry per game: the offset
+ * of its record in the data file as a long, a copy of the record's header, and one unused byte.
+ *
+ * A record is written before its index entry and the count is updated last, so an archive
+ * that was not closed still opens with every game up to the last complete one. Appends must
+ * come from one thread at a time, and are not safe while other threads read.
+ *
+ * @invariant       count = [number of index entries] AND
+ *                  dataLength = [offset just past the last record]
+ */
+public class GameArchive implements Closeable {
+
+    public static final int INDEX_MAGIC = 0x43584958;
+    public static final int INDEX_VERSION = 1;
+    public static final int INDEX_HEADER_BYTES = 32;
+    public static final int INDEX_ENTRY_BYTES = 16;
+    public static final long DEFAULT_SEGMENT_BYTES = 1L << 28;
+
+    private static final int COUNT_AT = 2 * Integer.BYTES;
+    private static final int DATA_LENGTH_AT = COUNT_AT + Long.BYTES;
+    private static final int ENTRY_HEADER_AT = Long.BYTES;
+
+    /**
+     * Picks games by the fields kept in the index.
+     */
+    public interface Filter {
+
+        /**
+         * @param outcome   the winning seat, GameRecord.TIE or GameRecord.UNFINISHED.
+         * @return          true to visit the game
+         */
+        public boolean accept(int numRows, int numColumns, int numToWin, int numPlayers, int outcome, int numMoves);
+
+    }
+
+    /**
+     * Receives each game a scan picks.
+     */
+    public interface Visitor {
+
+        /**
+         * @param game      the index of the game in the archive.
+         * @param data      the mapped data, to be read with the GameRecord methods and not changed.
+         * @param offset    where the game's record starts in data.
+         */
+        public void visit(long game, ByteBuffer data, int offset);
+
+    }
+
+    /**
+     * The mappings of one file, one per segment, created as they are first needed.
+     */
+    private static final class Segments {
+
+        private final FileChannel channel;
+        private final boolean writable;
+        private final long segmentBytes;
+        private final int overlap;
+        private final List<MappedByteBuffer> maps = new ArrayList<>();
+
+        Segments(FileChannel channel, boolean writable, long segmentBytes, int overlap){
+
+            this.channel = channel;
+            this.writable = writable;
+            this.segmentBytes = segmentBytes;
+            this.overlap = overlap;
+
+        }
+
+        /**
+         * @return      the mapping that holds position, which a writable file is grown to cover
+         */
+        MappedByteBuffer at(long position) throws IOException {
+
+            int k = (int) (position / segmentBytes);
+
+            while (maps.size() <= k){
+
+                long start = maps.size() * segmentBytes;
+                long size = segmentBytes + overlap;
+
+                // A read only mapping can not go past the end of the file
+                if (!writable) size = Math.min(size, channel.size() - start);
+
+                maps.add(channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, start, size));
+
+            }
+
+            return maps.get(k);
+
+        }
+
+        int local(long position){ return (int) (position % segmentBytes); }
+
+        void force(){
+
+            if (writable) for (MappedByteBuffer map : maps) map.force();
+
+        }
+
+    }
+
+    private final FileChannel dataChannel;
+    private final FileChannel indexChannel;
+    private final Segments data;
+    private final Segments index;
+    private final boolean writable;
+    private long count;
+    private long dataLength;
+
+    private GameArchive(Path base, boolean writable, long segmentBytes) throws IOException {
+
+        this.writable = writable;
+
+        StandardOpenOption [] options = writable
+                ? new StandardOpenOption [] {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE}
+                : new StandardOpenOption [] {StandardOpenOption.READ};
+
+        dataChannel = FileChannel.open(dataFile(base), options);
+        indexChannel = FileChannel.open(indexFile(base), options);
+        data = new Segments(dataChannel, writable, segmentBytes, GameRecord.MAX_RECORD_BYTES);
+        index = new Segments(indexChannel, writable, segmentBytes, 0);
+
+        if (indexChannel.size() == 0){
+
+            if (!writable) throw new IOException("Empty game archive");
+
+            ByteBuffer header = index.at(0);
+
+            header.putInt(0, INDEX_MAGIC).putInt(Integer.BYTES, INDEX_VERSION);
+            data.at(0).putInt(0, GameRecord.MAGIC).putInt(Integer.BYTES, GameRecord.VERSION);
+            dataLength = GameRecord.STREAM_HEADER_BYTES;
+            writeCounts();
+
+        }
+        else {
+
+            ByteBuffer header = index.at(0);
+
+            if (header.getInt(0) != INDEX_MAGIC || header.getInt(Integer.BYTES) != INDEX_VERSION) throw new IOException("Not a game archive");
+
+            count = header.getLong(COUNT_AT);
+            dataLength = header.getLong(DATA_LENGTH_AT);
+
+        }
+
+    }
+
+    /**
+     * Opens the archive at base for appending, creating it if it does not exist.
+     *
+     * @param base          the path of the archive without the .data or .idx extension.
+     * @return              the archive
+     * @throws IOException  if the files can not be opened or are not an archive
+     */
+    public static GameArchive open(Path base) throws IOException { return new GameArchive(base, true, DEFAULT_SEGMENT_BYTES); }
+
+    /**
+     * Opens the archive at base for reading only.
+     *
+     * @param base          the path of the archive without the .data or .idx extension.
+     * @return              the archive
+     * @throws IOException  if the files can not be opened or are not an archive
+     */
+    public static GameArchive openReadOnly(Path base) throws IOException { return new GameArchive(base, false, DEFAULT_SEGMENT_BYTES); }
+
+    /**
+     * Opens the archive at base with a given segment size, which must be the same every time
+     * an archive is opened and a multiple of INDEX_ENTRY_BYTES.
+     */
+    static GameArchive open(Path base, boolean writable, long segmentBytes) throws IOException {
+
+        return new GameArchive(base, writable, segmentBytes);
+
+    }
+
+    public static Path dataFile(Path base){ return Paths.get(base + ".data"); }
+
+    public static Path indexFile(Path base){ return Paths.get(base + ".idx"); }
+
+    /**
+     * Adds one game at the end of the archive.
+     *
+     * @param moves         the columns played, in order.
+     * @param outcome       the winning seat, GameRecord.TIE or GameRecord.UNFINISHED.
+     * @return              the index of the new game
+     * @throws IOException  if a file can not be grown
+     * @pre                 [the archive was opened for appending] AND [the board settings are valid] AND
+     *                      numMoves <= moves.length
+     * @post                size() = #size() + 1
+     */
+    public synchronized long append(int numRows, int numColumns, int numToWin, int numPlayers, int outcome,
+                                    int [] moves, int numMoves) throws IOException {
+
+        MappedByteBuffer segment = data.at(dataLength);
+        int offset = data.local(dataLength);
+
+        segment.position(offset);
+        GameRecord.put(segment, numRows, numColumns, numToWin, numPlayers, outcome, moves, numMoves);
+
+        long entry = entryPosition(count);
+        MappedByteBuffer entries = index.at(entry);
+        int at = index.local(entry);
+
+        entries.putLong(at, dataLength);
+
+        for (int i = IGameBoard.START; i < GameRecord.HEADER_BYTES; i++) entries.put(at + ENTRY_HEADER_AT + i, segment.get(offset + i));
+
+        dataLength += segment.position() - offset;
+        count++;
+        writeCounts();
+
+        return count - 1;
+
+    }
+
+    /**
+     * Adds every game of a stream written by GameRecordWriter.
+     *
+     * @return              the number of games added
+     * @throws IOException  if the stream can not be read or a file can not be grown
+     * @post                size() = #size() + [games in reader]
+     */
+    public synchronized long appendAll(GameRecordReader reader) throws IOException {
+
+        int [] moves = new int[IGameBoard.MAX_NUM_ROWS * IGameBoard.MAX_NUM_COLUMNS];
+        long added = 0;
+
+        while (reader.next()){
+
+            int numMoves = reader.getNumMoves();
+
+            for (int i = IGameBoard.START; i < numMoves; i++) moves[i] = reader.getMove(i);
+
+            append(reader.getNumRows(), reader.getNumColumns(), reader.getNumToWin(), reader.getNumPlayers(), reader.getOutcome(), moves, numMoves);
+            added++;
+
+        }
+
+        return added;
+
+    }
+
+    /**
+     * @return      the number of games in the archive
+     */
+    public synchronized long size(){ return count; }
+
+    public int getNumRows(long game) throws IOException { return GameRecord.rows(entryBuffer(game), entryHeader(game)); }
+
+    public int getNumColumns(long game) throws IOException { return GameRecord.columns(entryBuffer(game), entryHeader(game)); }
+
+    public int getNumToWin(long game) throws IOException { return GameRecord.numToWin(entryBuffer(game), entryHeader(game)); }
+
+    public int getNumPlayers(long game) throws IOException { return GameRecord.players(entryBuffer(game), entryHeader(game)); }
+
+    /**
+     * @return      the winning seat of game, GameRecord.TIE or GameRecord.UNFINISHED
+     */
+    public int getOutcome(long game) throws IOException { return GameRecord.outcome(entryBuffer(game), entryHeader(game)); }
+
+    public int getNumMoves(long game) throws IOException { return GameRecord.numMoves(entryBuffer(game), entryHeader(game)); }
+
+    /**
+     * @param game      the index of a game.
+     * @param i         the index of a move in that game.
+     * @return          the column of move i of game
+     * @throws IOException  if the data can not be mapped
+     * @pre             0 <= game < size() AND 0 <= i < getNumMoves(game)
+     */
+    public int getMove(long game, int i) throws IOException {
+
+        long offset = dataOffset(game);
+
+        return GameRecord.move(data.at(offset), data.local(offset), i);
+
+    }
+
+    /**
+     * Plays the whole of game on board.
+     *
+     * @param board     an empty board of the game's configuration, of any IGameBoard type.
+     * @throws IOException  if the data can not be mapped
+     * @pre             0 <= game < size()
+     * @post            [board holds the final position of game]
+     */
+    public void replay(long game, IGameBoard board) throws IOException {
+
+        long offset = dataOffset(game);
+        ByteBuffer segment = data.at(offset);
+        int local = data.local(offset);
+
+        GameRecord.replay(segment, local, board, GameRecord.numMoves(segment, local));
+
+    }
+
+    /**
+     * Visits every game that filter accepts, in order. Only the index is read to filter.
+     *
+     * @param filter    picks the games, or null for all of them.
+     * @return          the number of games visited
+     * @throws IOException  if a file can not be mapped
+     */
+    public long scan(Filter filter, Visitor visitor) throws IOException {
+
+        long n = size();
+        long visited = 0;
+
+        for (long game = 0; game < n; game++){
+
+            long entry = entryPosition(game);
+            ByteBuffer entries = index.at(entry);
+            int at = index.local(entry);
+            int h = at + ENTRY_HEADER_AT;
+
+            if (filter != null && !filter.accept(GameRecord.rows(entries, h), GameRecord.columns(entries, h), GameRecord.numToWin(entries, h),
+                    GameRecord.players(entries, h), GameRecord.outcome(entries, h), GameRecord.numMoves(entries, h))) continue;
+
+            long offset = entries.getLong(at);
+
+            visitor.visit(game, data.at(offset), data.local(offset));
+            visited++;
+
+        }
+
+        return visited;
+
+    }
+
+    /**
+     * @return      a filter that accepts the games that ended with outcome
+     */
+    public static Filter byOutcome(int outcome){ return (rows, cols, toWin, players, result, moves) -> result == outcome; }
+
+    /**
+     * @return      a filter that accepts the games played with these settings
+     */
+    public static Filter byConfiguration(int numRows, int numColumns, int numToWin, int numPlayers){
+
+        return (rows, cols, toWin, players, result, moves) -> rows == numRows && cols == numColumns && toWin == numToWin && players == numPlayers;
+
+    }
+
+    /**
+     * Writes every change to disk.
+     */
+    public synchronized void flush(){
+
+        data.force();
+        index.force();
+
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            flush();
+
+            // The mappings grew both files past what is used
+            if (writable){
+
+                dataChannel.truncate(dataLength);
+                indexChannel.truncate(entryPosition(count));
+
+            }
+
+        } finally {
+
+            dataChannel.close();
+            indexChannel.close();
+
+        }
+
+    }
+
+    private static long entryPosition(long game){ return INDEX_HEADER_BYTES + game * INDEX_ENTRY_BYTES; }
+
+    private ByteBuffer entryBuffer(long game) throws IOException { return index.at(entryPosition(game)); }
+
+    private int entryHeader(long game){ return index.local(entryPosition(game)) + ENTRY_HEADER_AT; }
+
+    private long dataOffset(long game) throws IOException {
+
+        long entry = entryPosition(game);
+
+        return index.at(entry).getLong(index.local(entry));
+
+    }
+
+    private void writeCounts() throws IOException {
+
+        index.at(0).putLong(COUNT_AT, count).putLong(DATA_LENGTH_AT, dataLength);
+
+    }
+
+    /**
+     * Arguments: base import file...   adds the games of GameRecordWriter files to the archive
+     *            base stats [rows columns numToWin players]   counts the outcomes of the games
+     */
+    public static void main(String [] args) throws IOException {
+
+        Path base = Paths.get(args[0]);
+
+        if (args[1].equals("import")){
+
+            try (GameArchive archive = open(base)){
+
+                for (int i = 2; i < args.length; i++){
+
+                    try (GameRecordReader reader = GameRecordReader.open(Paths.get(args[i]))){
+
+                        System.out.println(args[i] + ": " + archive.appendAll(reader) + " games");
+
+                    }
+
+                }
+
+                System.out.println(archive.size() + " games in " + base);
+
+            }
+
+            return;
+
+        }
+
+        try (GameArchive archive = openReadOnly(base)){
+
+            Filter filter = args.length < 6 ? null : byConfiguration(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+            long [] outcomes = new long[ConnectXController.MAX_PLAYERS - GameRecord.TIE];
+            long [] moves = new long[1];
+            long start = System.nanoTime();
+
+            // Outcomes are shifted by -TIE so that TIE and UNFINISHED get slots too
+            long games = archive.scan(filter, (game, buffer, offset) -> {
+
+                outcomes[GameRecord.outcome(buffer, offset) - GameRecord.TIE]++;
+                moves[0] += GameRecord.numMoves(buffer, offset);
+
+            });
+
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+
+            System.out.println(games + " games, " + games * 1000000000L / elapsed + " games/sec, avg length "
+                    + String.format("%.1f", games == 0 ? 0 : (double) moves[0] / games));
+            System.out.println("ties " + outcomes[GameRecord.TIE - GameRecord.TIE] + ", unfinished " + outcomes[GameRecord.UNFINISHED - GameRecord.TIE]);
+
+            for (int seat = IGameBoard.START; seat < ConnectXController.MAX_PLAYERS; seat++){
+
+                long wins = outcomes[seat - GameRecord.TIE];
+
+                if (wins > 0) System.out.println(ConnectXController.PLAYER_TOKENS[seat] + " won " + wins);
+
+            }
+
+        }
+
+    }
+
+}
@@ -7,14 +7,20 @@ public class GameBoard extends AbsGameBoard {
      *                  MIN_NUM_COLUMNS <= numColumns <= MAX_NUM_COLUMNS AND
      *                  MIN_NUM_TO_WIN <= numToWin <= MAX_NUM_TO_WIN AND
      *                  MIN_NUM_MOVES <= numMoves <= (numRows * numColumns) AND
-     *                  MIN_ROW <= lastPlacedRow <= numRows
+     *                  MIN_ROW <= heights[c] <= numRows for every column c AND
+     *                  zobristHash = [XOR of Zobrist.key for every placed token] AND
+     *                  [lineCounts = null or counts the windows of the tokens on the board] AND
+     *                  [history holds the moves on the board in order, history.size() = numMoves]
      * Correspondence   self.getNumRows() = numRows AND
      *                  self.getNumColumns() = numColumns AND
      *                  self = gameBoard[getNumRows() + 1][getNumColumns() + 1]
      */
     private char [][] gameBoard;
+    private int [] heights;
+    private long zobristHash;
+    private LineCounts lineCounts;
+    private MoveHistory history;
     private int numMoves;
-    private int lastPlacedRow;
     private int numRows;
     private int numColumns;
     private int numToWin;
@@ -40,6 +46,8 @@ public class GameBoard extends AbsGameBoard {
 
         gameBoard = new char[getNumRows() + 1][getNumColumns() + 1];
         numMoves = MIN_NUM_MOVES;
+        history = new MoveHistory();
+        heights = new int[numColumns];
 
         // For loops to initialize the game board array
         for (int i = START; i <= getNumRows(); i++){
@@ -50,20 +58,46 @@ public class GameBoard extends AbsGameBoard {
 
     }
 
+    /**
+     * Copy constructor for GameBoard
+     *
+     *
+     * @post    [this board has the same size, tokens and move count as other]
+     */
+    private GameBoard(GameBoard other){
+
+        numRows = other.numRows;
+        numColumns = other.numColumns;
+        numToWin = other.numToWin;
+        maxMoves = other.maxMoves;
+        numMoves = other.numMoves;
+        zobristHash = other.zobristHash;
+        lineCounts = (other.lineCounts == null) ? null : other.lineCounts.copy();
+        history = other.history.copy();
+        heights = other.heights.clone();
+
+        gameBoard = new char[other.gameBoard.length][];
+
+        for (int i = START; i < gameBoard.length; i++) gameBoard[i] = other.gameBoard[i].clone();
+
+    }
+
+    public IGameBoard copy(){ return new GameBoard(this); }
+
     public boolean checkForWin(int c){
 
-        // Temporary BoardPosition variable used to represent
-        // the position of the last placed player token
-        BoardPosition temp = new BoardPosition(lastPlacedRow, c);
-        char p = whatsAtPos(temp);
+        // Row and player token of the last placed token, which is the top
+        // one in column c, read directly so that no BoardPosition is created
+        int r = heights[c] - STEP;
+        char p = whatsAtPos(r, c);
 
-        if (checkHorizWin(temp, p)) return true;
+        if (checkHorizWin(r, c, p)) return true;
         else{
 
-            if (checkVertWin(temp, p)) return true;
+            if (checkVertWin(r, c, p)) return true;
             else{
 
-                return checkDiagWin(temp, p);
+                return checkDiagWin(r, c, p);
 
             }
 
@@ -73,33 +107,45 @@ public class GameBoard extends AbsGameBoard {
 
     public void placeToken(char p, int c){
 
-        int r = 0;
-        BoardPosition temp = new BoardPosition(r, c);
+        int r = heights[c];
 
-        while (whatsAtPos(temp) != ' ') {
+        gameBoard[r][c] = p;
 
-            r++;
-            temp = new BoardPosition(r, c);
+        heights[c] = r + STEP;
+        zobristHash ^= Zobrist.key(p, r, c);
 
-        }
+        if (lineCounts != null) lineCounts.place(p, r, c);
 
-        gameBoard[r][c] = p;
-
-        lastPlacedRow = r;
+        history.push(p, c);
 
         numMoves++;
 
     }
 
-    public char whatsAtPos(BoardPosition pos){
+    public void removeToken(int c){
+
+        int r = heights[c] - STEP;
 
-        int row = pos.getRow();
-        int col = pos.getColumn();
+        if (lineCounts != null) lineCounts.remove(gameBoard[r][c], r, c);
 
-        return gameBoard[row][col];
+        zobristHash ^= Zobrist.key(gameBoard[r][c], r, c);
+        gameBoard[r][c] = ' ';
+
+        heights[c] = r;
+
+        history.pop();
+        numMoves--;
 
     }
 
+    public char whatsAtPos(BoardPosition pos){ return whatsAtPos(pos.getRow(), pos.getColumn()); }
+
+    @Override
+    public char whatsAtPos(int r, int c){ return gameBoard[r][c]; }
+
+    @Override
+    public boolean isPlayerAtPos(int r, int c, char player){ return gameBoard[r][c] == player; }
+
     public boolean checkTie(){ return (numMoves == maxMoves); }
 
     public int getNumRows(){ return numRows; }
@@ -108,4 +154,39 @@ public class GameBoard extends AbsGameBoard {
 
     public int getNumToWin(){ return numToWin; }
 
+    public int getColumnHeight(int c){ return heights[c]; }
+
+    public long getZobristHash(){ return zobristHash; }
+
+    public void undoLastMove(){ removeToken(history.column(history.size() - STEP)); }
+
+    public void redoMove(){ placeToken(history.token(history.size()), history.column(history.size())); }
+
+    public boolean canUndo(){ return history.size() > MIN_NUM_MOVES; }
+
+    public boolean canRedo(){ return history.size() < history.redoLimit(); }
+
+    public void clearBoard(){
+
+        while (history.size() > MIN_NUM_MOVES) undoLastMove();
+
+        history.clear();
+
+    }
+
+    public int getLineScore(char p){ return lineCounts().score(p); }
+
+    public int getOpenLines(char p, int count){ return lineCounts().lines(p, count); }
+
+    /**
+     * @return      the window counts, which are only built once an evaluation asks for them
+     */
+    private LineCounts lineCounts(){
+
+        if (lineCounts == null) lineCounts = new LineCounts(this);
+
+        return lineCounts;
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,409 @@
+package cpsc2150.extendedConnectX;
+
+public class GameBoardBit extends AbsGameBoard {
+
+    /**
+     * @invariant       MIN_NUM_ROWS <= numRows <= MAX_NUM_ROWS AND
+     *                  MIN_NUM_COLUMNS <= numColumns <= MAX_NUM_COLUMNS AND
+     *                  MIN_NUM_TO_WIN <= numToWin <= MAX_NUM_TO_WIN AND
+     *                  MIN_NUM_MOVES <= numMoves <= (numRows * numColumns) AND
+     *                  0 <= numPlayers <= ConnectXController.MAX_PLAYERS AND
+     *                  MIN_ROW <= heights[c] <= numRows for every column c AND
+     *                  zobristHash = [XOR of Zobrist.key for every placed token] AND
+     *                  [lineCounts = null or counts the windows of the tokens on the board] AND
+     *                  [history holds the moves on the board in order, history.size() = numMoves]
+     * Correspondence   self.getNumRows() = numRows AND
+     *                  self.getNumColumns() = numColumns AND
+     *                  self = lineBits
+     *
+     * Every player token gets its own slot in players and its own bitset in lineBits.
+     * A bitset is split into lines of wordsPerLine longs: one line for every row, one
+     * for every column, one for every up-right diagonal and one for every up-left
+     * diagonal. Rows and both kinds of diagonals use the column as the bit index,
+     * columns use the row, so a run of tokens on the board is always a run of set bits.
+     */
+    private long [][] lineBits;
+    private char [] players;
+    private int numPlayers;
+    private int [] heights;
+    private long zobristHash;
+    private LineCounts lineCounts;
+    private MoveHistory history;
+    private int wordsPerLine;
+    private int vertStart;
+    private int diagStart;
+    private int antiDiagStart;
+    private int numLines;
+    private int numMoves;
+    private int numRows;
+    private int numColumns;
+    private int numToWin;
+    private int maxMoves;
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = 63;
+    private static final int BITS_PER_WORD = 64;
+    private static final int NO_PLAYER = -1;
+
+    /**
+     * Constructor for GameBoardBit
+     *
+     *
+     * @post    numRows = #numRows AND
+     *          numColumns = #numColumns AND
+     *          numToWin = #numToWin AND
+     *          lineBits = [no bitsets, one is created the first time a token is placed] AND
+     *          numMoves = 0 AND
+     *          maxMoves = numRows * numColumns
+     */
+    public GameBoardBit(int numRows, int numColumns, int numToWin){
+
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.numToWin = numToWin;
+        maxMoves = this.numRows * this.numColumns;
+        numMoves = MIN_NUM_MOVES;
+        history = new MoveHistory();
+
+        wordsPerLine = (Math.max(numRows, numColumns) + WORD_MASK) >>> WORD_SHIFT;
+        vertStart = numRows;
+        diagStart = vertStart + numColumns;
+        antiDiagStart = diagStart + numRows + numColumns - 1;
+        numLines = antiDiagStart + numRows + numColumns - 1;
+
+        lineBits = new long[ConnectXController.MAX_PLAYERS][];
+        players = new char[ConnectXController.MAX_PLAYERS];
+        numPlayers = START;
+        heights = new int[numColumns];
+
+    }
+
+    /**
+     * Copy constructor for GameBoardBit
+     *
+     *
+     * @post    [this board has the same size, tokens and move count as other]
+     */
+    private GameBoardBit(GameBoardBit other){
+
+        numRows = other.numRows;
+        numColumns = other.numColumns;
+        numToWin = other.numToWin;
+        maxMoves = other.maxMoves;
+        numMoves = other.numMoves;
+        zobristHash = other.zobristHash;
+        lineCounts = (other.lineCounts == null) ? null : other.lineCounts.copy();
+        history = other.history.copy();
+        wordsPerLine = other.wordsPerLine;
+        vertStart = other.vertStart;
+        diagStart = other.diagStart;
+        antiDiagStart = other.antiDiagStart;
+        numLines = other.numLines;
+        numPlayers = other.numPlayers;
+        players = other.players.clone();
+        heights = other.heights.clone();
+
+        lineBits = new long[other.lineBits.length][];
+
+        for (int i = START; i < numPlayers; i++) lineBits[i] = other.lineBits[i].clone();
+
+    }
+
+    public IGameBoard copy(){ return new GameBoardBit(this); }
+
+    public boolean checkForWin(int c){
+
+        // The last token placed in column c is the top one in that column
+        int r = heights[c] - STEP;
+        int slot = slotOf(whatsAtPos(r, c));
+
+        if (slot == NO_PLAYER) return false;
+
+        if (hasRun(slot, horizLine(r), c)) return true;
+        else{
+
+            if (hasRun(slot, vertLine(c), r)) return true;
+            else{
+
+                return hasRun(slot, diagLine(r, c), c) || hasRun(slot, antiDiagLine(r, c), c);
+
+            }
+
+        }
+
+    }
+
+    public void placeToken(char p, int c){
+
+        int r = heights[c];
+        int slot = slotOf(p);
+
+        // The first time a token is seen it gets its own bitset
+        if (slot == NO_PLAYER){
+
+            slot = numPlayers;
+            players[slot] = p;
+            lineBits[slot] = new long[numLines * wordsPerLine];
+            numPlayers++;
+
+        }
+
+        long [] bits = lineBits[slot];
+        setBit(bits, horizLine(r), c);
+        setBit(bits, vertLine(c), r);
+        setBit(bits, diagLine(r, c), c);
+        setBit(bits, antiDiagLine(r, c), c);
+
+        heights[c] = r + STEP;
+        zobristHash ^= Zobrist.key(p, r, c);
+
+        if (lineCounts != null) lineCounts.place(p, r, c);
+
+        history.push(p, c);
+
+        numMoves++;
+
+    }
+
+    public void removeToken(int c){
+
+        int r = heights[c] - STEP;
+        char p = whatsAtPos(r, c);
+        long [] bits = lineBits[slotOf(p)];
+
+        if (lineCounts != null) lineCounts.remove(p, r, c);
+
+        zobristHash ^= Zobrist.key(p, r, c);
+
+        clearBit(bits, horizLine(r), c);
+        clearBit(bits, vertLine(c), r);
+        clearBit(bits, diagLine(r, c), c);
+        clearBit(bits, antiDiagLine(r, c), c);
+
+        heights[c] = r;
+
+        history.pop();
+        numMoves--;
+
+    }
+
+    public char whatsAtPos(BoardPosition pos){ return whatsAtPos(pos.getRow(), pos.getColumn()); }
+
+    @Override
+    public char whatsAtPos(int r, int c){
+
+        if (r < MIN_ROW || r >= numRows || c < MIN_COLUMN || c >= numColumns) return ' ';
+
+        int line = horizLine(r);
+
+        for (int i = START; i < numPlayers; i++){
+
+            if (testBit(lineBits[i], line, c)) return players[i];
+
+        }
+
+        return ' ';
+
+    }
+
+    @Override
+    public boolean isPlayerAtPos(int r, int c, char player){
+
+        int slot = slotOf(player);
+
+        if (slot == NO_PLAYER || r < MIN_ROW || r >= numRows || c < MIN_COLUMN || c >= numColumns) return false;
+
+        return testBit(lineBits[slot], horizLine(r), c);
+
+    }
+
+    @Override
+    public boolean checkHorizWin(int r, int c, char p){
+
+        int slot = slotOf(p);
+
+        if (slot == NO_PLAYER) return false;
+
+        return hasRun(slot, horizLine(r), c);
+
+    }
+
+    @Override
+    public boolean checkVertWin(int r, int c, char p){
+
+        int slot = slotOf(p);
+
+        if (slot == NO_PLAYER) return false;
+
+        return hasRun(slot, vertLine(c), r);
+
+    }
+
+    @Override
+    public boolean checkDiagWin(int r, int c, char p){
+
+        int slot = slotOf(p);
+
+        if (slot == NO_PLAYER) return false;
+
+        return hasRun(slot, diagLine(r, c), c) || hasRun(slot, antiDiagLine(r, c), c);
+
+    }
+
+    public int getColumnHeight(int c){ return heights[c]; }
+
+    public long getZobristHash(){ return zobristHash; }
+
+    public void undoLastMove(){ removeToken(history.column(history.size() - STEP)); }
+
+    public void redoMove(){ placeToken(history.token(history.size()), history.column(history.size())); }
+
+    public boolean canUndo(){ return history.size() > MIN_NUM_MOVES; }
+
+    public boolean canRedo(){ return history.size() < history.redoLimit(); }
+
+    public void clearBoard(){
+
+        while (history.size() > MIN_NUM_MOVES) undoLastMove();
+
+        history.clear();
+
+    }
+
+    public int getLineScore(char p){ return lineCounts().score(p); }
+
+    public int getOpenLines(char p, int count){ return lineCounts().lines(p, count); }
+
+    /**
+     * @return      the window counts, which are only built once an evaluation asks for them
+     */
+    private LineCounts lineCounts(){
+
+        if (lineCounts == null) lineCounts = new LineCounts(this);
+
+        return lineCounts;
+
+    }
+
+    public boolean checkTie(){ return numMoves == maxMoves; }
+
+    public int getNumRows(){ return numRows; }
+
+    public int getNumColumns(){ return numColumns; }
+
+    public int getNumToWin(){ return numToWin; }
+
+    /**
+     * Checks if the run of player slot's bits on line that passes through bit index
+     * pos is at least numToWin long. The bit at pos itself always counts, the same
+     * way the IGameBoard walkers always count the starting token.
+     *
+     * Only the 2 * numToWin - 1 bits centered on pos can be part of such a run, and
+     * since MAX_NUM_TO_WIN is 25 they fit in a single long. The run is then found
+     * with log2(numToWin) shift-and-AND steps: after a step of length len, bit i is
+     * set only if bits i through i + len - 1 were all set.
+     *
+     * @param slot  the player slot whose bitset is checked
+     * @param line  the line that pos is on
+     * @param pos   bit index of the last placed token on the line
+     * @return      true if the player has numToWin in a row through pos, false otherwise
+     * @post        #board = board
+     */
+    private boolean hasRun(int slot, int line, int pos){
+
+        int reach = numToWin - STEP;
+        long window = extract(lineBits[slot], line, pos - reach, reach + reach + STEP);
+        int len = STEP;
+
+        window |= 1L << reach;
+
+        while (len + len <= numToWin){
+
+            window &= window >>> len;
+            len += len;
+
+        }
+
+        if (len < numToWin) window &= window >>> (numToWin - len);
+
+        return window != 0;
+
+    }
+
+    /**
+     * Copies len bits of a line, starting at bit index from, into the low bits of a
+     * long. Bits before the start or past the end of the line read as 0.
+     *
+     * @param bits  the bitset to read
+     * @param line  the line to read
+     * @param from  first bit index to read, may be negative
+     * @param len   number of bits to read
+     * @return      the requested bits
+     * @pre         0 < len < 64
+     */
+    private long extract(long [] bits, int line, int from, int len){
+
+        int skipped = START;
+
+        if (from < START){
+
+            skipped = -from;
+            len -= skipped;
+            from = START;
+
+        }
+
+        int word = from >>> WORD_SHIFT;
+        int offset = from & WORD_MASK;
+        int base = line * wordsPerLine;
+        long result = 0;
+
+        if (word < wordsPerLine) result = bits[base + word] >>> offset;
+
+        if (offset != START && word + STEP < wordsPerLine) result |= bits[base + word + STEP] << (BITS_PER_WORD - offset);
+
+        result &= (1L << len) - 1;
+
+        return result << skipped;
+
+    }
+
+    private int slotOf(char p){
+
+        for (int i = START; i < numPlayers; i++){
+
+            if (players[i] == p) return i;
+
+        }
+
+        return NO_PLAYER;
+
+    }
+
+    private void setBit(long [] bits, int line, int index){
+
+        bits[line * wordsPerLine + (index >>> WORD_SHIFT)] |= 1L << (index & WORD_MASK);
+
+    }
+
+    private void clearBit(long [] bits, int line, int index){
+
+        bits[line * wordsPerLine + (index >>> WORD_SHIFT)] &= ~(1L << (index & WORD_MASK));
+
+    }
+
+    private boolean testBit(long [] bits, int line, int index){
+
+        return (bits[line * wordsPerLine + (index >>> WORD_SHIFT)] & (1L << (index & WORD_MASK))) != 0;
+
+    }
+
+    private int horizLine(int r){ return r; }
+
+    private int vertLine(int c){ return vertStart + c; }
+
+    private int diagLine(int r, int c){ return diagStart + r - c + numColumns - STEP; }
+
+    private int antiDiagLine(int r, int c){ return antiDiagStart + r + c; }
+
+}
@@ -9,19 +9,37 @@ public class GameBoardMem extends AbsGameBoard{
      *                  MIN_NUM_COLUMNS <= numColumns <= MAX_NUM_COLUMNS AND
      *                  MIN_NUM_TO_WIN <= numToWin <= MAX_NUM_TO_WIN AND
      *                  MIN_NUM_MOVES <= numMoves <= (numRows * numColumns) AND
-     *                  MIN_ROW <= lastPlacedRow <= numRows
+     *                  MIN_ROW <= heights[c] <= numRows for every column c AND
+     *                  zobristHash = [XOR of Zobrist.key for every placed token] AND
+     *                  [lineCounts = null or counts the windows of the tokens on the board] AND
+     *                  [history holds the moves on the board in order, history.size() = numMoves] AND
+     *                  numMoves * MAX_LOAD <= positions.length
      * Correspondence   self.getNumRows() = numRows AND
      *                  self.getNumColumns() = numColumns AND
-     *                  self = gameBoard
+     *                  self = [tokens[i] is at the position packed in positions[i]
+     *                  for every slot i that is not EMPTY]
+     *
+     * positions and tokens form an open addressing hash map from a packed position
+     * (row * numColumns + column) to the token at that position. Only placed tokens
+     * are stored, so memory grows with the number of moves instead of the board area.
      */
-    private Map<Character, List<BoardPosition>> gameBoard;
+    private int [] positions;
+    private char [] tokens;
+    private int [] heights;
+    private long zobristHash;
+    private LineCounts lineCounts;
+    private MoveHistory history;
     private int numMoves;
-    private int lastPlacedRow;
     private int numRows;
     private int numColumns;
     private int numToWin;
     private int maxMoves;
 
+    private static final int EMPTY = -1;
+    private static final int START_CAPACITY = 16;
+    private static final int MAX_LOAD = 2;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
     /**
      * Constructor for GameBoardMem
      *
@@ -29,7 +47,7 @@ public class GameBoardMem extends AbsGameBoard{
      * @post    numRows = #numRows AND
      *          numColumns = #numColumns AND
      *          numToWin = #numToWin AND
-     *          gameBoard = [Empty HashMap] AND
+     *          positions = [START_CAPACITY EMPTY slots] AND
      *          numMoves = 0 AND
      *          maxMoves = numRows * numColumns
      */
@@ -40,25 +58,53 @@ public class GameBoardMem extends AbsGameBoard{
         this.numToWin = numToWin;
         maxMoves = this.numRows * this.numColumns;
         numMoves = MIN_NUM_MOVES;
+        history = new MoveHistory();
+        heights = new int[numColumns];
 
-        gameBoard = new HashMap<>();
+        positions = new int[START_CAPACITY];
+        tokens = new char[START_CAPACITY];
+        Arrays.fill(positions, EMPTY);
 
     }
 
+    /**
+     * Copy constructor for GameBoardMem
+     *
+     *
+     * @post    [this board has the same size, tokens and move count as other]
+     */
+    private GameBoardMem(GameBoardMem other){
+
+        numRows = other.numRows;
+        numColumns = other.numColumns;
+        numToWin = other.numToWin;
+        maxMoves = other.maxMoves;
+        numMoves = other.numMoves;
+        zobristHash = other.zobristHash;
+        lineCounts = (other.lineCounts == null) ? null : other.lineCounts.copy();
+        history = other.history.copy();
+        heights = other.heights.clone();
+        positions = other.positions.clone();
+        tokens = other.tokens.clone();
+
+    }
+
+    public IGameBoard copy(){ return new GameBoardMem(this); }
+
     public boolean checkForWin(int c){
 
-        // Temporary BoardPosition variable used to represent
-        // the position of the last placed player token
-        BoardPosition temp = new BoardPosition(lastPlacedRow, c);
-        char p = whatsAtPos(temp);
+        // Row and player token of the last placed token, which is the top
+        // one in column c, read directly so that no BoardPosition is created
+        int r = heights[c] - STEP;
+        char p = whatsAtPos(r, c);
 
-        if (checkHorizWin(temp, p)) return true;
+        if (checkHorizWin(r, c, p)) return true;
         else{
 
-            if (checkVertWin(temp, p)) return true;
+            if (checkVertWin(r, c, p)) return true;
             else{
 
-                return checkDiagWin(temp, p);
+                return checkDiagWin(r, c, p);
 
             }
 
@@ -79,77 +125,191 @@ public class GameBoardMem extends AbsGameBoard{
      */
     public void placeToken(char p, int c){
 
-        int r = 0;
-        BoardPosition temp = new BoardPosition(r, c);
-        List<BoardPosition> tempList;
+        int r = heights[c];
 
-        if (gameBoard.containsKey(p)) tempList = gameBoard.get(p);
-        else tempList = new ArrayList<>();
+        // Keep the table at most half full so probe sequences stay short
+        if ((numMoves + STEP) * MAX_LOAD > positions.length) grow();
 
-        while (whatsAtPos(temp) != ' '){
+        insert(r * numColumns + c, p);
 
-            r++;
-            temp = new BoardPosition(r, c);
+        heights[c] = r + STEP;
+        zobristHash ^= Zobrist.key(p, r, c);
 
-        }
+        if (lineCounts != null) lineCounts.place(p, r, c);
 
-        tempList.add(temp);
+        history.push(p, c);
 
-        if (gameBoard.containsKey(p)) {
+        numMoves++;
 
-            gameBoard.remove(p);
-            gameBoard.put(p, tempList);
+    }
 
-        }
-        else gameBoard.put(p, tempList);
+    public void removeToken(int c){
 
-        lastPlacedRow = r;
+        int r = heights[c] - STEP;
+        char p = whatsAtPos(r, c);
 
-        numMoves++;
+        if (lineCounts != null) lineCounts.remove(p, r, c);
+
+        zobristHash ^= Zobrist.key(p, r, c);
+        delete(r * numColumns + c);
+
+        heights[c] = r;
+
+        history.pop();
+        numMoves--;
 
     }
 
-    public char whatsAtPos(BoardPosition pos){
+    public char whatsAtPos(BoardPosition pos){ return whatsAtPos(pos.getRow(), pos.getColumn()); }
 
-        List<BoardPosition> temp;
+    @Override
+    public char whatsAtPos(int r, int c){
 
-        for (Map.Entry<Character, List<BoardPosition>> m : gameBoard.entrySet()){
+        // Cells above a column's height are always empty, this also
+        // covers positions that are outside of the board
+        if (c < MIN_COLUMN || c >= numColumns || r < MIN_ROW || r >= heights[c]) return ' ';
 
-            temp = m.getValue();
+        int key = r * numColumns + c;
+        int mask = positions.length - STEP;
+        int i = slotFor(key, mask);
 
-            for (int i = START; i < temp.size(); i++){
+        while (positions[i] != key) i = (i + STEP) & mask;
 
-                if (temp.get(i).getColumn() == pos.getColumn() && temp.get(i).getRow() == pos.getRow()) return m.getKey();
+        return tokens[i];
 
-            }
+    }
 
-        }
+    public boolean checkTie(){ return numMoves == maxMoves; }
+
+    public int getNumRows(){ return numRows; }
+
+    public int getNumColumns(){ return numColumns; }
+
+    public int getNumToWin(){ return numToWin; }
+
+    public int getColumnHeight(int c){ return heights[c]; }
+
+    public long getZobristHash(){ return zobristHash; }
 
-        return ' ';
+    public void undoLastMove(){ removeToken(history.column(history.size() - STEP)); }
+
+    public void redoMove(){ placeToken(history.token(history.size()), history.column(history.size())); }
+
+    public boolean canUndo(){ return history.size() > MIN_NUM_MOVES; }
+
+    public boolean canRedo(){ return history.size() < history.redoLimit(); }
+
+    public void clearBoard(){
+
+        while (history.size() > MIN_NUM_MOVES) undoLastMove();
+
+        history.clear();
 
     }
 
-    @Override
-    public boolean isPlayerAtPos(BoardPosition pos, char player){
+    /**
+     * @return      the moves of the board, for AdaptiveGameBoard to copy in order
+     */
+    MoveHistory history(){ return history; }
+
+    public int getLineScore(char p){ return lineCounts().score(p); }
 
-        List<BoardPosition> temp = gameBoard.get(player);
+    public int getOpenLines(char p, int count){ return lineCounts().lines(p, count); }
 
-        for (int i = START; i < temp.size(); i++){
+    /**
+     * @return      the window counts, which are only built once an evaluation asks for them
+     */
+    private LineCounts lineCounts(){
+
+        if (lineCounts == null) lineCounts = new LineCounts(this);
+
+        return lineCounts;
+
+    }
+
+    /**
+     * Stores token p under key, probing linearly from the key's home slot.
+     *
+     * @param key   packed position of the token
+     * @param p     the token
+     * @pre         key is not in positions AND there is at least one EMPTY slot
+     * @post        [p is stored under key]
+     */
+    private void insert(int key, char p){
+
+        int mask = positions.length - STEP;
+        int i = slotFor(key, mask);
+
+        while (positions[i] != EMPTY) i = (i + STEP) & mask;
+
+        positions[i] = key;
+        tokens[i] = p;
+
+    }
+
+    /**
+     * Removes key from the table. Instead of leaving a marker behind, the entries after
+     * the removed one are shifted back so every key can still be found by probing
+     * linearly from its home slot without passing an EMPTY slot.
+     *
+     * @param key   packed position of the token to remove
+     * @pre         key is in positions
+     * @post        [key is no longer stored AND every other token is still stored under its position]
+     */
+    private void delete(int key){
+
+        int mask = positions.length - STEP;
+        int hole = slotFor(key, mask);
+
+        while (positions[hole] != key) hole = (hole + STEP) & mask;
 
-            if (temp.get(i).equals(pos)) return true;
+        int i = (hole + STEP) & mask;
+
+        while (positions[i] != EMPTY){
+
+            int home = slotFor(positions[i], mask);
+
+            // The entry at i can fill the hole if its home slot is not
+            // cyclically between the hole and i
+            if (((i - home) & mask) >= ((i - hole) & mask)){
+
+                positions[hole] = positions[i];
+                tokens[hole] = tokens[i];
+                hole = i;
+
+            }
+
+            i = (i + STEP) & mask;
 
         }
 
-        return false;
+        positions[hole] = EMPTY;
 
     }
 
-    public boolean checkTie(){ return numMoves == maxMoves; }
+    /**
+     * Doubles the capacity of the table and re-inserts every stored token.
+     *
+     * @post    positions.length = 2 * #positions.length AND
+     *          [every token is still stored under its position]
+     */
+    private void grow(){
 
-    public int getNumRows(){ return numRows; }
+        int [] oldPositions = positions;
+        char [] oldTokens = tokens;
 
-    public int getNumColumns(){ return numColumns; }
+        positions = new int[oldPositions.length * 2];
+        tokens = new char[oldTokens.length * 2];
+        Arrays.fill(positions, EMPTY);
 
-    public int getNumToWin(){ return numToWin; }
+        for (int i = START; i < oldPositions.length; i++){
+
+            if (oldPositions[i] != EMPTY) insert(oldPositions[i], oldTokens[i]);
+
+        }
+
+    }
+
+    private static int slotFor(int key, int mask){ return (key * HASH_MULTIPLIER >>> 16) & mask; }
 
 }
@@ -0,0 +1,69 @@
+package cpsc2150.extendedConnectX;
+
+/**
+ * Receives the events of a GameSession. Every method does nothing by default, so a listener
+ * only overrides the events it cares about. Events are sent on the thread that made the move.
+ *
+ * Defines: Session - The GameSession the listener is registered with
+ */
+public interface GameListener {
+
+    /**
+     * Called after a token is placed on the board.
+     *
+     * @param token     the token that was placed.
+     * @param row       the row it landed in.
+     * @param column    the column it was dropped in.
+     */
+    public default void tokenPlaced(char token, int row, int column){}
+
+    /**
+     * Called after a token is taken back by an undo.
+     *
+     * @param token     the token that was taken back.
+     * @param row       the row it was in.
+     * @param column    the column it was in.
+     */
+    public default void tokenRemoved(char token, int row, int column){}
+
+    /**
+     * Called when it becomes a seat's turn, including the first turn of a game.
+     *
+     * @param token     the token of the seat to move.
+     * @param seat      the index of the seat in turn order.
+     */
+    public default void turnStarted(char token, int seat){}
+
+    /**
+     * Called when a seat tried to play a column that is full. It is still that seat's turn.
+     *
+     * @param token     the token of the seat that tried.
+     * @param column    the full column.
+     */
+    public default void columnFull(char token, int column){}
+
+    /**
+     * Called after turnStarted when hints are on and the position has been solved.
+     *
+     * @param token     the token of the seat to move.
+     * @param result    EndgameSolver.WIN, DRAW or LOSS for token with perfect play.
+     * @param column    a column that gets result.
+     */
+    public default void endgameSolved(char token, int result, int column){}
+
+    /**
+     * Called when a seat has won. No more moves are accepted until a new game is started.
+     *
+     * @param token         the token of the winner.
+     * @param adjudicated   true if the game was ended early with its solved result.
+     */
+    public default void gameWon(char token, boolean adjudicated){}
+
+    /**
+     * Called when the game ended in a tie. No more moves are accepted until a new game is started.
+     *
+     * @param adjudicated   true if the game was ended early with its solved result.
+     */
+    public default void gameTied(boolean adjudicated){}
+
+}
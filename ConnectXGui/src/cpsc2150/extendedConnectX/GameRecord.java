@@ -0,0 +1,152 @@
+package cpsc2150.extendedConnectX;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format of a game record, shared by GameRecordWriter and GameRecordReader.
+ *
+ * A stream starts with MAGIC and VERSION as ints, then holds any number of records. A record
+ * is a HEADER_BYTES header of rows, columns, numToWin, player count and outcome as one byte
+ * each and the number of moves as an unsigned short, followed by the moves. Each move is a
+ * column packed into bitsPerMove(columns) bits, the first move in the lowest bits of the first
+ * byte, and the last byte is padded with zeros. A 6x7 game of 30 moves takes 19 bytes, where
+ * the text of AbsGameBoard.toString for the final board alone takes over 100.
+ *
+ * The move at index i is read straight out of any ByteBuffer, so records can be read in
+ * place, for example from a mapped file, without copying them to the heap.
+ */
+public final class GameRecord {
+
+    public static final int MAGIC = 0x43585247;
+    public static final int VERSION = 1;
+    public static final int STREAM_HEADER_BYTES = 2 * Integer.BYTES;
+    public static final int HEADER_BYTES = 7;
+
+    // The largest record: a full 100x100 board at 7 bits a move
+    public static final int MAX_RECORD_BYTES = HEADER_BYTES
+            + movesBytes(IGameBoard.MAX_NUM_COLUMNS, IGameBoard.MAX_NUM_ROWS * IGameBoard.MAX_NUM_COLUMNS);
+
+    // Outcomes that are not a winning seat
+    public static final int UNFINISHED = -1;
+    public static final int TIE = -2;
+
+    static final int ROWS = 0;
+    static final int COLUMNS = 1;
+    static final int NUM_TO_WIN = 2;
+    static final int PLAYERS = 3;
+    static final int OUTCOME = 4;
+    static final int NUM_MOVES = 5;
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int SHORT_MASK = 0xFFFF;
+    private static final int BITS_PER_BYTE = 8;
+
+    private GameRecord(){}
+
+    /**
+     * @return      the fewest bits that hold every column index of a board with numColumns columns
+     */
+    public static int bitsPerMove(int numColumns){ return Integer.SIZE - Integer.numberOfLeadingZeros(numColumns - 1); }
+
+    /**
+     * @return      the bytes the moves of a record take
+     */
+    public static int movesBytes(int numColumns, int numMoves){ return (numMoves * bitsPerMove(numColumns) + BITS_PER_BYTE - 1) / BITS_PER_BYTE; }
+
+    /**
+     * @return      the bytes of the whole record that starts at offset in buffer
+     */
+    public static int recordBytes(ByteBuffer buffer, int offset){ return HEADER_BYTES + movesBytes(columns(buffer, offset), numMoves(buffer, offset)); }
+
+    public static int rows(ByteBuffer buffer, int offset){ return buffer.get(offset + ROWS) & BYTE_MASK; }
+
+    public static int columns(ByteBuffer buffer, int offset){ return buffer.get(offset + COLUMNS) & BYTE_MASK; }
+
+    public static int numToWin(ByteBuffer buffer, int offset){ return buffer.get(offset + NUM_TO_WIN) & BYTE_MASK; }
+
+    public static int players(ByteBuffer buffer, int offset){ return buffer.get(offset + PLAYERS) & BYTE_MASK; }
+
+    /**
+     * @return      the winning seat, TIE or UNFINISHED
+     */
+    public static int outcome(ByteBuffer buffer, int offset){ return buffer.get(offset + OUTCOME); }
+
+    public static int numMoves(ByteBuffer buffer, int offset){ return buffer.getShort(offset + NUM_MOVES) & SHORT_MASK; }
+
+    /**
+     * Reads one packed move without changing the buffer's position.
+     *
+     * @param offset    where the record starts in buffer.
+     * @param i         the index of the move in the game.
+     * @return          the column of move i
+     * @pre             0 <= i < numMoves(buffer, offset)
+     */
+    public static int move(ByteBuffer buffer, int offset, int i){
+
+        int bits = bitsPerMove(columns(buffer, offset));
+        int bit = i * bits;
+        int at = offset + HEADER_BYTES + bit / BITS_PER_BYTE;
+        int shift = bit % BITS_PER_BYTE;
+        int value = (buffer.get(at) & BYTE_MASK) >>> shift;
+
+        // A move of up to 7 bits spans at most two bytes
+        if (shift + bits > BITS_PER_BYTE) value |= (buffer.get(at + 1) & BYTE_MASK) << (BITS_PER_BYTE - shift);
+
+        return value & ((1 << bits) - 1);
+
+    }
+
+    /**
+     * Places the first count moves of the record at offset on board, with the seats taking
+     * turns in ConnectXController.PLAYER_TOKENS order.
+     *
+     * @param board     an empty board of the record's configuration.
+     * @pre             0 <= count <= numMoves(buffer, offset)
+     * @post            [board holds the position after count moves of the game]
+     */
+    public static void replay(ByteBuffer buffer, int offset, IGameBoard board, int count){
+
+        int players = players(buffer, offset);
+
+        for (int i = IGameBoard.START; i < count; i++) board.placeToken(ConnectXController.PLAYER_TOKENS[i % players], move(buffer, offset, i));
+
+    }
+
+    /**
+     * Writes one record at the buffer's position and moves the position past it.
+     *
+     * @param moves     the columns played, in order.
+     * @param outcome   the winning seat, TIE or UNFINISHED.
+     * @pre             buffer.remaining() >= HEADER_BYTES + movesBytes(numColumns, numMoves) AND
+     *                  numMoves <= moves.length
+     */
+    public static void put(ByteBuffer buffer, int numRows, int numColumns, int numToWin, int numPlayers, int outcome,
+                           int [] moves, int numMoves){
+
+        buffer.put((byte) numRows).put((byte) numColumns).put((byte) numToWin).put((byte) numPlayers).put((byte) outcome)
+                .putShort((short) numMoves);
+
+        int bits = bitsPerMove(numColumns);
+        int pending = 0;
+        int numPending = 0;
+
+        for (int i = IGameBoard.START; i < numMoves; i++){
+
+            pending |= moves[i] << numPending;
+            numPending += bits;
+
+            while (numPending >= BITS_PER_BYTE){
+
+                buffer.put((byte) pending);
+                pending >>>= BITS_PER_BYTE;
+                numPending -= BITS_PER_BYTE;
+
+            }
+
+        }
+
+        if (numPending > 0) buffer.put((byte) pending);
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams game records in the GameRecord format from a channel, one at a time. The current
+ * record stays packed in one reused buffer: its fields and moves are read out of it on
+ * demand and replay drops the moves straight onto a board, so reading any number of games
+ * allocates nothing after the reader is created.
+ *
+ * @invariant       [current is the offset of the current record in buffer, or there is none
+ *                  before the first call to next]
+ */
+public class GameRecordReader implements Closeable {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private int current;
+    private int currentBytes;
+    private boolean hasRecord;
+
+    /**
+     * @param channel       where the records come from. It is closed with the reader.
+     * @throws IOException  if the channel fails or does not start with a game record stream header
+     * @post                [the reader is before the first record]
+     */
+    public GameRecordReader(ReadableByteChannel channel) throws IOException {
+
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(Math.max(GameRecordWriter.DEFAULT_BUFFER_BYTES, GameRecord.MAX_RECORD_BYTES));
+        buffer.flip();
+
+        if (!fill(GameRecord.STREAM_HEADER_BYTES) || buffer.getInt() != GameRecord.MAGIC || buffer.getInt() != GameRecord.VERSION){
+
+            throw new IOException("Not a game record stream");
+
+        }
+
+        current = buffer.position();
+
+    }
+
+    /**
+     * @param file          a file written by GameRecordWriter.
+     * @return              a reader of file
+     * @throws IOException  if the file can not be opened or is not a game record stream
+     */
+    public static GameRecordReader open(Path file) throws IOException {
+
+        return new GameRecordReader(FileChannel.open(file, StandardOpenOption.READ));
+
+    }
+
+    /**
+     * Moves on to the next record.
+     *
+     * @return              false if there are no more records
+     * @throws IOException  if the channel fails or the last record is cut short
+     */
+    public boolean next() throws IOException {
+
+        buffer.position(current + currentBytes);
+        hasRecord = false;
+
+        if (!fill(GameRecord.HEADER_BYTES)){
+
+            if (buffer.hasRemaining()) throw new IOException("Truncated game record");
+
+            return false;
+
+        }
+
+        current = buffer.position();
+        currentBytes = GameRecord.recordBytes(buffer, current);
+
+        if (!fill(currentBytes)) throw new IOException("Truncated game record");
+
+        current = buffer.position();
+        hasRecord = true;
+
+        return true;
+
+    }
+
+    public int getNumRows(){ return GameRecord.rows(buffer, current); }
+
+    public int getNumColumns(){ return GameRecord.columns(buffer, current); }
+
+    public int getNumToWin(){ return GameRecord.numToWin(buffer, current); }
+
+    public int getNumPlayers(){ return GameRecord.players(buffer, current); }
+
+    /**
+     * @return      the winning seat, GameRecord.TIE or GameRecord.UNFINISHED
+     */
+    public int getOutcome(){ return GameRecord.outcome(buffer, current); }
+
+    public int getNumMoves(){ return GameRecord.numMoves(buffer, current); }
+
+    /**
+     * @param i     the index of a move in the game.
+     * @return      the column of move i
+     * @pre         [next returned true] AND 0 <= i < getNumMoves()
+     */
+    public int getMove(int i){ return GameRecord.move(buffer, current, i); }
+
+    /**
+     * @return      true if next has returned true and there is a current record
+     */
+    public boolean hasRecord(){ return hasRecord; }
+
+    /**
+     * Plays the whole current game on board.
+     *
+     * @param board     an empty board of the record's configuration, of any IGameBoard type.
+     * @pre             [next returned true]
+     * @post            [board holds the final position of the game]
+     */
+    public void replay(IGameBoard board){ replay(board, getNumMoves()); }
+
+    /**
+     * Plays the first count moves of the current game on board.
+     *
+     * @param board     an empty board of the record's configuration, of any IGameBoard type.
+     * @pre             [next returned true] AND 0 <= count <= getNumMoves()
+     * @post            [board holds the position after count moves]
+     */
+    public void replay(IGameBoard board, int count){ GameRecord.replay(buffer, current, board, count); }
+
+    @Override
+    public void close() throws IOException { channel.close(); }
+
+    /**
+     * Makes sure n bytes from the buffer's position are in the buffer, reading more from the
+     * channel after moving the unread bytes to the front.
+     *
+     * @return      false if the channel ended first
+     */
+    private boolean fill(int n) throws IOException {
+
+        if (buffer.remaining() >= n) return true;
+
+        buffer.compact();
+
+        while (buffer.position() < n){
+
+            if (channel.read(buffer) < 0) break;
+
+        }
+
+        buffer.flip();
+
+        return buffer.remaining() >= n;
+
+    }
+
+}
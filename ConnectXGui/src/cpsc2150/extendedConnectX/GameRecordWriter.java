@@ -0,0 +1,106 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams game records in the GameRecord format to a channel. Records are packed into one
+ * reused buffer that is written out whenever the next record might not fit, so writing a
+ * game allocates nothing. write is synchronized so that the threads of a SelfPlayRunner can
+ * share one writer.
+ *
+ * @invariant       [the stream header has been put in buffer or written to channel]
+ */
+public class GameRecordWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long numRecords;
+
+    /**
+     * @param channel       where the records go. It is closed with the writer.
+     * @post                [the stream header is written first]
+     */
+    public GameRecordWriter(WritableByteChannel channel){
+
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(Math.max(DEFAULT_BUFFER_BYTES, GameRecord.MAX_RECORD_BYTES));
+        buffer.putInt(GameRecord.MAGIC).putInt(GameRecord.VERSION);
+
+    }
+
+    /**
+     * @param file          the file to create or replace.
+     * @return              a writer to file
+     * @throws IOException  if the file can not be opened
+     */
+    public static GameRecordWriter create(Path file) throws IOException {
+
+        return new GameRecordWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+
+    }
+
+    /**
+     * Adds one game.
+     *
+     * @param moves         the columns played, in order.
+     * @param numMoves      the number of moves in moves to write.
+     * @param outcome       the winning seat, GameRecord.TIE or GameRecord.UNFINISHED.
+     * @throws IOException  if the channel fails
+     * @pre                 [the board settings are valid] AND numMoves <= moves.length
+     * @post                getNumRecords() = #getNumRecords() + 1
+     */
+    public synchronized void write(int numRows, int numColumns, int numToWin, int numPlayers, int outcome,
+                                   int [] moves, int numMoves) throws IOException {
+
+        if (buffer.remaining() < GameRecord.HEADER_BYTES + GameRecord.movesBytes(numColumns, numMoves)) flush();
+
+        GameRecord.put(buffer, numRows, numColumns, numToWin, numPlayers, outcome, moves, numMoves);
+        numRecords++;
+
+    }
+
+    /**
+     * @return      the number of records written
+     */
+    public synchronized long getNumRecords(){ return numRecords; }
+
+    /**
+     * Writes out everything buffered so far.
+     *
+     * @throws IOException  if the channel fails
+     */
+    public synchronized void flush() throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) channel.write(buffer);
+
+        buffer.clear();
+
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            flush();
+
+        } finally {
+
+            channel.close();
+
+        }
+
+    }
+
+}
@@ -0,0 +1,469 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One game of Connect X without any user interface: it owns the board, the turn rotation,
+ * win and tie detection, the computer seats and starting new games, and reports what
+ * happens to its GameListeners. ConnectXController is a thin Swing adapter on top of it,
+ * and batch jobs can play games with it directly.
+ *
+ * A session with no listeners and hints and adjudication off does no work beyond the moves
+ * themselves, so thousands of games can be played per second.
+ *
+ * @invariant       0 <= turn < numPlayers AND
+ *                  numPlayers <= tokens.length AND
+ *                  [over = true iff the last move won or tied the game, or it was adjudicated]
+ */
+public class GameSession {
+
+    public static final int NO_WINNER = -1;
+
+    private IGameBoard board;
+    private final char [] tokens;
+    private final int numPlayers;
+    private final IComputerPlayer [] computerPlayers;
+    private final List<GameListener> listeners = new ArrayList<>();
+
+    private int turn;
+    private int numMoves;
+
+    // The columns played so far, in order
+    private int [] moves;
+    private boolean over;
+    private boolean adjudicated;
+    private int winner = NO_WINNER;
+
+    // Solves two player games once few cells are left, created the first time it is needed
+    private EndgameSolver solver;
+    private boolean showHints;
+    private boolean adjudicate;
+
+    // True while a saved game is played back, when the endgame is not solved after every move
+    private boolean restoring;
+
+    /**
+     * @param board         the empty board to play on.
+     * @param numPlayers    the number of seats, which use ConnectXController.PLAYER_TOKENS in order.
+     * @pre                 2 <= numPlayers <= MAX_PLAYERS
+     * @post                [a game on board is started with seat 0 to move]
+     */
+    public GameSession(IGameBoard board, int numPlayers){ this(board, ConnectXController.PLAYER_TOKENS, numPlayers); }
+
+    /**
+     * @param board         the empty board to play on.
+     * @param tokens        the tokens of the seats in turn order.
+     * @param numPlayers    the number of seats.
+     * @pre                 2 <= numPlayers <= tokens.length <= MAX_PLAYERS
+     * @post                [a game on board is started with seat 0 to move]
+     */
+    public GameSession(IGameBoard board, char [] tokens, int numPlayers){
+
+        this.board = board;
+        this.tokens = tokens;
+        this.numPlayers = numPlayers;
+        computerPlayers = new IComputerPlayer[numPlayers];
+        moves = new int[board.getNumRows() * board.getNumColumns()];
+
+    }
+
+    /**
+     * @param listener  receives the events of every later move.
+     * @post            [listener is told about every move from now on]
+     */
+    public void addListener(GameListener listener){ listeners.add(listener); }
+
+    /**
+     * @param listener  a listener that was added before.
+     * @post            [listener is no longer told about moves]
+     */
+    public void removeListener(GameListener listener){ listeners.remove(listener); }
+
+    /**
+     * @param seat      the index of the player in turn order
+     * @param player    the computer player that plays for seat, or null to make it a human seat again
+     * @pre             0 <= seat < numPlayers
+     * @post            the seat will be played by player. If it is already seat's turn the computer moves right away
+     */
+    public void setComputerPlayer(int seat, IComputerPlayer player){
+
+        computerPlayers[seat] = player;
+
+        playComputerTurns();
+
+    }
+
+    /**
+     * @param show      true to solve the position for a human seat near the end of a two player game
+     * @post            [endgameSolved is sent after turnStarted once EndgameSolver.DEFAULT_MAX_EMPTY_CELLS or
+     *                  fewer cells are empty and the position can be solved]
+     */
+    public void setShowHints(boolean show){ showHints = show; }
+
+    /**
+     * @param on        true to end a two player game as soon as its outcome with perfect play is known
+     * @post            [near the end of a two player game the solved result is declared instead of played out]
+     */
+    public void setAdjudicate(boolean on){ adjudicate = on; }
+
+    /**
+     * Plays column for the human seat whose turn it is, then lets every computer seat that
+     * comes up next move.
+     *
+     * @param column    the column to drop a token in.
+     * @return          false if the move was not played because the game is over, it is a
+     *                  computer seat's turn or column is full
+     * @pre             MIN_COLUMN <= column < board.getNumColumns()
+     */
+    public boolean play(int column){
+
+        if (over || computerPlayers[turn] != null) return false;
+
+        if (!move(column)) return false;
+
+        playComputerTurns();
+
+        return true;
+
+    }
+
+    /**
+     * Takes back the last move, and the computer moves before it, so that it is a human seat's
+     * turn again. A finished game goes on again from before its last move. The moves taken
+     * back can be played again with redo until a different move is played.
+     *
+     * @return      false if there is no move to take back
+     * @post        [the moves back to the last human move are taken back] AND
+     *              [if only computer moves were left, the computer seats have moved again]
+     */
+    public boolean undo(){
+
+        if (numMoves == 0) return false;
+
+        do {
+
+            takeBack();
+
+        } while (numMoves > 0 && computerPlayers[turn] != null);
+
+        for (GameListener l : listeners) l.turnStarted(tokens[turn], turn);
+
+        solveEndgame();
+        playComputerTurns();
+
+        return true;
+
+    }
+
+    /**
+     * Plays again the last move taken back by undo, and the computer moves after it, with
+     * IGameBoard.redoMove.
+     *
+     * @return      false if the game is over or there is nothing to redo
+     * @post        [the moves up to the next human turn are played again]
+     */
+    public boolean redo(){
+
+        if (over || !board.canRedo()) return false;
+
+        do {
+
+            int column = moves[numMoves];
+            char token = tokens[turn];
+            int row = board.getColumnHeight(column);
+
+            board.redoMove();
+            placed(token, row, column);
+
+        } while (!over && board.canRedo() && computerPlayers[turn] != null);
+
+        playComputerTurns();
+
+        return true;
+
+    }
+
+    /**
+     * @return      true if there is a move for redo to play again
+     */
+    public boolean canRedo(){ return !over && board.canRedo(); }
+
+    /**
+     * Starts a new game on board with seat 0 to move. Computer seats, listeners, hints and
+     * adjudication stay as they are.
+     *
+     * @param board     the empty board to play on.
+     * @post            [a game on board is started and the computer seats that come first have moved]
+     */
+    public void newGame(IGameBoard board){
+
+        reset(board);
+
+        for (GameListener l : listeners) l.turnStarted(tokens[turn], turn);
+
+        playComputerTurns();
+
+    }
+
+    /**
+     * Starts board over from a saved game. The moves are played in order without asking the
+     * computer seats or solving the endgame, and listeners hear about every one of them, so
+     * the work is proportional to the number of moves. If the saved game had been adjudicated
+     * its result is declared again.
+     *
+     * @param board     the empty board to play on.
+     * @param moves     the columns of the saved game, in order.
+     * @param numMoves  the number of moves in moves.
+     * @param outcome   the winning seat, GameRecord.TIE or GameRecord.UNFINISHED.
+     * @pre             [every move is legal in turn on board] AND numMoves <= moves.length
+     * @post            [the game is where the saved one was and the computer seats that come next have moved]
+     */
+    public void restore(IGameBoard board, int [] moves, int numMoves, int outcome){
+
+        reset(board);
+
+        for (GameListener l : listeners) l.turnStarted(tokens[turn], turn);
+
+        restoring = true;
+
+        for (int i = IGameBoard.START; i < numMoves && !over; i++) move(moves[i]);
+
+        restoring = false;
+
+        if (!over && outcome == GameRecord.TIE) tie(true);
+        else if (!over && outcome != GameRecord.UNFINISHED) win(outcome, true);
+
+        solveEndgame();
+        playComputerTurns();
+
+    }
+
+    /**
+     * @return      the board of the game being played
+     */
+    public IGameBoard getBoard(){ return board; }
+
+    /**
+     * @return      the seat whose turn it is
+     */
+    public int getTurn(){ return turn; }
+
+    /**
+     * @return      the token of the seat whose turn it is
+     */
+    public char getCurrentToken(){ return tokens[turn]; }
+
+    /**
+     * @return      the number of seats
+     */
+    public int getNumPlayers(){ return numPlayers; }
+
+    /**
+     * @return      the tokens of the seats in turn order
+     */
+    public char [] getTokens(){ return tokens; }
+
+    /**
+     * @return      the number of tokens placed in this game
+     */
+    public int getNumMoves(){ return numMoves; }
+
+    /**
+     * @param i     the index of a move in this game
+     * @return      the column of move i
+     * @pre         0 <= i < getNumMoves()
+     */
+    public int getMove(int i){ return moves[i]; }
+
+    /**
+     * @return      the winning seat, GameRecord.TIE or GameRecord.UNFINISHED
+     */
+    public int getOutcome(){
+
+        if (!over) return GameRecord.UNFINISHED;
+
+        return winner == NO_WINNER ? GameRecord.TIE : winner;
+
+    }
+
+    /**
+     * @return      true if the game has been won, tied or adjudicated
+     */
+    public boolean isOver(){ return over; }
+
+    /**
+     * @return      the seat that won, or NO_WINNER if the game is still going or was a tie
+     */
+    public int getWinner(){ return winner; }
+
+    /**
+     * @param seat  the index of a seat in turn order
+     * @return      true if seat is played by a computer player
+     */
+    public boolean isComputerSeat(int seat){ return computerPlayers[seat] != null; }
+
+    /**
+     * Interrupting the thread cancels the computer turns. A search that is cut short by the
+     * interrupt returns early, and its column is not played.
+     *
+     * @post    every computer seat whose turn comes up has played, until it is a human seat's turn or the game is over,
+     *          or the thread was interrupted
+     */
+    public void playComputerTurns(){
+
+        while (!over && computerPlayers[turn] != null && !Thread.currentThread().isInterrupted()){
+
+            int column = computerPlayers[turn].selectColumn(board, tokens, numPlayers, turn);
+
+            if (Thread.currentThread().isInterrupted()) return;
+
+            move(column);
+
+        }
+
+    }
+
+    /**
+     * Places the current seat's token in column if it is not full and moves the game on.
+     *
+     * @return      true if the token was placed
+     */
+    private boolean move(int column){
+
+        if (!board.checkIfFree(column)){
+
+            for (GameListener l : listeners) l.columnFull(tokens[turn], column);
+
+            return false;
+
+        }
+
+        char token = tokens[turn];
+        int row = board.getColumnHeight(column);
+
+        board.placeToken(token, column);
+        placed(token, row, column);
+
+        return true;
+
+    }
+
+    /**
+     * Records a token that was just placed, tells the listeners and moves the game on.
+     */
+    private void placed(char token, int row, int column){
+
+        moves[numMoves] = column;
+        numMoves++;
+
+        for (GameListener l : listeners) l.tokenPlaced(token, row, column);
+
+        if (board.checkForWin(column)) win(turn, false);
+        else if (board.checkTie()) tie(false);
+        else {
+
+            turn++;
+
+            if (turn == numPlayers) turn = IGameBoard.START;
+
+            for (GameListener l : listeners) l.turnStarted(tokens[turn], turn);
+
+            solveEndgame();
+
+        }
+
+    }
+
+    /**
+     * Takes back the last move on the board with IGameBoard.undoLastMove and tells the
+     * listeners. The turn goes back to the seat that made the move.
+     */
+    private void takeBack(){
+
+        int column = moves[numMoves - 1];
+        int row = board.getColumnHeight(column) - 1;
+        char token = board.whatsAtPos(row, column);
+
+        // The turn only moved on after the last move if it did not end the game itself
+        boolean turnMoved = !over || adjudicated;
+
+        board.undoLastMove();
+        numMoves--;
+
+        if (turnMoved) turn = (turn + numPlayers - 1) % numPlayers;
+
+        over = false;
+        winner = NO_WINNER;
+        adjudicated = false;
+
+        for (GameListener l : listeners) l.tokenRemoved(token, row, column);
+
+    }
+
+    /**
+     * Near the end of a two player game, solves the position for hints or adjudication.
+     */
+    private void solveEndgame(){
+
+        boolean hint = showHints && computerPlayers[turn] == null;
+
+        if (over || restoring || numPlayers != 2 || !(adjudicate || hint) || EndgameSolver.emptyCells(board) > EndgameSolver.DEFAULT_MAX_EMPTY_CELLS) return;
+
+        // Only solve is called, so the fallback player is never asked and a cheap one is enough
+        if (solver == null) solver = new EndgameSolver(EndgameSolver.DEFAULT_CACHE_BYTES, EndgameSolver.DEFAULT_NODE_BUDGET,
+                new GreedyPlayer(0));
+
+        int other = (turn + 1) % numPlayers;
+        int result = solver.solve(board, tokens[turn], tokens[other]);
+
+        if (result == EndgameSolver.UNKNOWN) return;
+
+        if (adjudicate){
+
+            if (result == EndgameSolver.WIN) win(turn, true);
+            else if (result == EndgameSolver.LOSS) win(other, true);
+            else tie(true);
+
+        }
+        else {
+
+            for (GameListener l : listeners) l.endgameSolved(tokens[turn], result, solver.getBestColumn());
+
+        }
+
+    }
+
+    private void reset(IGameBoard board){
+
+        this.board = board;
+        turn = IGameBoard.START;
+        numMoves = 0;
+        over = false;
+        adjudicated = false;
+        winner = NO_WINNER;
+
+        if (moves.length != board.getNumRows() * board.getNumColumns()) moves = new int[board.getNumRows() * board.getNumColumns()];
+
+    }
+
+    private void win(int seat, boolean adjudicated){
+
+        over = true;
+        winner = seat;
+        this.adjudicated = adjudicated;
+
+        for (GameListener l : listeners) l.gameWon(tokens[seat], adjudicated);
+
+    }
+
+    private void tie(boolean adjudicated){
+
+        over = true;
+        this.adjudicated = adjudicated;
+
+        for (GameListener l : listeners) l.gameTied(adjudicated);
+
+    }
+
+}
@@ -0,0 +1,228 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A saved GameSession that can be resumed later, after the window is closed or the program
+ * restarted.
+ *
+ * A snapshot holds the moves of the game rather than its cells, so saving and restoring take
+ * time proportional to the number of placed tokens and not the board area. That is a few KB
+ * even for a full 100x100 board. The seat to move and the win or tie state follow from
+ * playing the moves back, and are also stored to check the snapshot against.
+ *
+ * The snapshot also keeps the SeatKind of every seat, so a resumed game is played by the same
+ * kinds of players. Snapshots of VERSION 1 were saved before seats could be computer players,
+ * and load with every seat HUMAN.
+ *
+ * File layout, big endian: MAGIC and VERSION as ints, the BoardType and the seat to move as
+ * one byte each, then the game as one GameRecord record, then the SeatKind of every seat as
+ * one byte each.
+ *
+ * @invariant       [record is one GameRecord record at offset 0]
+ */
+public final class GameSnapshot {
+
+    public static final int MAGIC = 0x43585353;
+    public static final int VERSION = 2;
+    public static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".connectx-snapshot.bin");
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 2;
+
+    // Snapshots of this version have no seat kinds
+    private static final int VERSION_WITHOUT_SEATS = 1;
+
+    private final BoardType boardType;
+    private final int turn;
+    private final ByteBuffer record;
+    private final SeatKind [] seats;
+
+    private GameSnapshot(BoardType boardType, int turn, ByteBuffer record, SeatKind [] seats){
+
+        this.boardType = boardType;
+        this.turn = turn;
+        this.record = record;
+        this.seats = seats;
+
+    }
+
+    /**
+     * Writes session to file. The snapshot is written next to file first and then moved over
+     * it, so a crash while saving leaves the last snapshot as it was.
+     *
+     * @param seats         the kind of player of every seat of session.
+     * @throws IOException  if the file can not be written
+     * @pre                 seats.length = session.getNumPlayers()
+     * @post                [file holds session's game and seats] AND #session = session
+     */
+    public static void save(GameSession session, SeatKind [] seats, Path file) throws IOException {
+
+        IGameBoard board = session.getBoard();
+        int numMoves = session.getNumMoves();
+        int [] moves = new int[numMoves];
+
+        for (int i = IGameBoard.START; i < numMoves; i++) moves[i] = session.getMove(i);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + GameRecord.HEADER_BYTES + GameRecord.movesBytes(board.getNumColumns(), numMoves)
+                + seats.length);
+
+        buffer.putInt(MAGIC).putInt(VERSION).put((byte) BoardType.of(board).ordinal()).put((byte) session.getTurn());
+        GameRecord.put(buffer, board.getNumRows(), board.getNumColumns(), board.getNumToWin(), session.getNumPlayers(),
+                session.getOutcome(), moves, numMoves);
+
+        for (SeatKind seat : seats) buffer.put((byte) seat.ordinal());
+
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            channel.force(true);
+
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    }
+
+    /**
+     * @return              the snapshot in file, or null if there is none
+     * @throws IOException  if the file can not be read or is not a valid snapshot
+     */
+    public static GameSnapshot load(Path file) throws IOException {
+
+        if (!Files.exists(file)) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buffer.remaining() < HEADER_BYTES + GameRecord.HEADER_BYTES || buffer.getInt() != MAGIC){
+
+            throw new IOException("Not a game snapshot");
+
+        }
+
+        int version = buffer.getInt();
+
+        if (version != VERSION && version != VERSION_WITHOUT_SEATS) throw new IOException("Not a game snapshot");
+
+        int type = buffer.get();
+        int turn = buffer.get();
+        ByteBuffer record = buffer.slice();
+
+        if (type < 0 || type >= BoardType.values().length || record.remaining() < GameRecord.recordBytes(record, 0)){
+
+            throw new IOException("Corrupt game snapshot");
+
+        }
+
+        int players = GameRecord.players(record, 0);
+
+        // An unfinished game is always at the seat after the last move
+        if (players < 2 || players > ConnectXController.MAX_PLAYERS || turn < 0 || turn >= players
+                || (GameRecord.outcome(record, 0) == GameRecord.UNFINISHED && turn != GameRecord.numMoves(record, 0) % players)){
+
+            throw new IOException("Corrupt game snapshot");
+
+        }
+
+        SeatKind [] seats = new SeatKind[players];
+        int recordBytes = GameRecord.recordBytes(record, 0);
+
+        if (version == VERSION_WITHOUT_SEATS){
+
+            Arrays.fill(seats, SeatKind.HUMAN);
+
+        }
+        else{
+
+            if (record.remaining() < recordBytes + players) throw new IOException("Corrupt game snapshot");
+
+            for (int i = IGameBoard.START; i < players; i++){
+
+                int kind = record.get(recordBytes + i);
+
+                if (kind < 0 || kind >= SeatKind.values().length) throw new IOException("Corrupt game snapshot");
+
+                seats[i] = SeatKind.values()[kind];
+
+            }
+
+        }
+
+        return new GameSnapshot(BoardType.values()[type], turn, record, seats);
+
+    }
+
+    /**
+     * Deletes the snapshot in file, if there is one.
+     *
+     * @throws IOException  if the file can not be deleted
+     */
+    public static void delete(Path file) throws IOException { Files.deleteIfExists(file); }
+
+    public int getNumRows(){ return GameRecord.rows(record, 0); }
+
+    public int getNumColumns(){ return GameRecord.columns(record, 0); }
+
+    public int getNumToWin(){ return GameRecord.numToWin(record, 0); }
+
+    public int getNumPlayers(){ return GameRecord.players(record, 0); }
+
+    public int getNumMoves(){ return GameRecord.numMoves(record, 0); }
+
+    /**
+     * @return      the winning seat, GameRecord.TIE or GameRecord.UNFINISHED
+     */
+    public int getOutcome(){ return GameRecord.outcome(record, 0); }
+
+    /**
+     * @return      the seat whose turn it was
+     */
+    public int getTurn(){ return turn; }
+
+    /**
+     * @return      the kind of player of every seat, in turn order
+     */
+    public SeatKind [] getSeats(){ return seats.clone(); }
+
+    /**
+     * @return      the type of board the game was played on
+     */
+    public BoardType getBoardType(){ return boardType; }
+
+    /**
+     * @return      an empty board of the saved size and type
+     */
+    public IGameBoard createBoard(){ return boardType.create(getNumRows(), getNumColumns(), getNumToWin()); }
+
+    /**
+     * Plays the saved game back into session.
+     *
+     * @param session   a session with the saved number of players.
+     * @param board     an empty board of the saved size, of any IGameBoard type.
+     * @pre             session.getNumPlayers() = getNumPlayers()
+     * @post            [session is at the saved position with the saved result]
+     */
+    public void restore(GameSession session, IGameBoard board){
+
+        int numMoves = getNumMoves();
+        int [] moves = new int[numMoves];
+
+        for (int i = IGameBoard.START; i < numMoves; i++) moves[i] = GameRecord.move(record, 0, i);
+
+        session.restore(board, moves, numMoves, getOutcome());
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.SplittableRandom;
+
+/**
+ * A computer player that looks one move ahead. It wins if it can, otherwise blocks a column
+ * where the next seat would win, and otherwise plays the column that leaves the best line
+ * score: its own IGameBoard.getLineScore minus the highest line score of any other seat.
+ * Ties between columns are broken at random, so two greedy players do not always play the
+ * same game.
+ */
+public class GreedyPlayer implements IComputerPlayer {
+
+    private final SplittableRandom random;
+
+    /**
+     * @param seed      the seed of the tie breaks, so that a run can be repeated.
+     * @post            [a player that breaks ties with a generator seeded with seed is created]
+     */
+    public GreedyPlayer(long seed){ random = new SplittableRandom(seed); }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        // Moves are tried on a copy so the game's move history keeps its redo list
+        board = board.copy();
+
+        char side = tokens[turn];
+        char next = tokens[(turn + 1) % numPlayers];
+        int block = -1;
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        int numBest = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (!board.checkIfFree(c)) continue;
+
+            board.placeToken(side, c);
+
+            if (board.checkForWin(c)){
+
+                board.removeToken(c);
+                return c;
+
+            }
+
+            int score = board.getLineScore(side) - bestOther(board, tokens, numPlayers, turn);
+
+            board.removeToken(c);
+
+            board.placeToken(next, c);
+
+            if (board.checkForWin(c)) block = c;
+
+            board.removeToken(c);
+
+            // Reservoir sampling picks uniformly among the columns that share the best score
+            if (score > bestScore){
+
+                bestScore = score;
+                best = c;
+                numBest = 1;
+
+            }
+            else if (score == bestScore && random.nextInt(++numBest) == 0) best = c;
+
+        }
+
+        return block >= IGameBoard.MIN_COLUMN ? block : best;
+
+    }
+
+    /**
+     * @return      the highest line score of any seat other than turn
+     */
+    private static int bestOther(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        int best = 0;
+
+        for (int p = IGameBoard.START; p < numPlayers; p++){
+
+            if (p != turn) best = Math.max(best, board.getLineScore(tokens[p]));
+
+        }
+
+        return best;
+
+    }
+
+}
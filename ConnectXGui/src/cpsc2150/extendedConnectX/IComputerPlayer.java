@@ -0,0 +1,31 @@
+package cpsc2150.extendedConnectX;
+
+/**
+ * A computer controlled seat. ConnectXController asks the computer player for a column
+ * whenever it is that seat's turn and plays the column it returns.
+ *
+ * Defines: Board - The game that is being played
+ *          Tokens - The player tokens in turn order
+ *          Turn - The index in Tokens of the player that is moving
+ *
+ * Constraints: A computer player leaves Board the way it found it
+ */
+public interface IComputerPlayer {
+
+    /**
+     * Picks the column that tokens[turn] should play next.
+     *
+     * @param board         the game being played, it is used to look ahead but is left unchanged.
+     * @param tokens        the player tokens in turn order.
+     * @param numPlayers    the number of players in the game, only tokens[0 .. numPlayers - 1] are used.
+     * @param turn          the index in tokens of the player that is moving.
+     * @return              a column that is free on board.
+     * @pre                 board.checkTie() = false AND
+     *                      nobody has won on board AND
+     *                      0 <= turn < numPlayers <= tokens.length
+     * @post                board.checkIfFree(selectColumn) = true AND
+     *                      #board = board
+     */
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn);
+
+}
@@ -16,8 +16,7 @@ package cpsc2150.extendedConnectX;
  * Initialization Ensures: [Game Board is full of blank space characters or is empty and
  *                          is numRows x numColumns]
  *
- * Constraints: 0 <= numMoves <= (numRows * numColumns) AND
- *              0 <= lastPlacedRow <= numRows
+ * Constraints: 0 <= numMoves <= (numRows * numColumns)
  *
  */
 public interface IGameBoard {
@@ -64,6 +63,68 @@ public interface IGameBoard {
      */
     public void placeToken(char p, int c);
 
+    /**
+     * Removes the top token from column c, undoing the last placeToken in that column.
+     * Together with placeToken this lets a search try a move and take it back without
+     * copying the board. The token is taken back from the move history as well, so c must
+     * be the column of the last move.
+     *
+     * @param c     column on the game board where the token is removed from.
+     * @pre         c >= MIN_COLUMN AND
+     *              c < numColumns AND
+     *              getColumnHeight(c) > 0 AND
+     *              [c is the column of the last move]
+     * @post        <getColumnHeight(c), c> = ' ' AND
+     *              getColumnHeight(c) = #getColumnHeight(c) - 1 AND
+     *              numMoves = #numMoves - 1
+     */
+    public void removeToken(int c);
+
+    /**
+     * Takes back the last token placed, in O(1). Boards keep every move in a primitive
+     * history, so moves can be taken back one after another all the way to an empty board.
+     * Calls to removeToken also take back from the same history, so a search that mixes them
+     * must remove tokens in the reverse order they were placed.
+     *
+     * @pre         canUndo() = true
+     * @post        [the token of the last move is removed] AND
+     *              canRedo() = true AND
+     *              numMoves = #numMoves - 1
+     */
+    public void undoLastMove();
+
+    /**
+     * Places again the last token taken back by undoLastMove or removeToken, in O(1).
+     * Placing any other token clears what there is to redo.
+     *
+     * @pre         canRedo() = true
+     * @post        [the taken back token is placed in its column again] AND
+     *              numMoves = #numMoves + 1
+     */
+    public void redoMove();
+
+    /**
+     * @return      true if there is a move to take back
+     * @post        canUndo = numMoves > 0 AND #board = board
+     */
+    public boolean canUndo();
+
+    /**
+     * @return      true if there is a taken back move to place again
+     * @post        #board = board
+     */
+    public boolean canRedo();
+
+    /**
+     * Empties the board for a new game of the same size. Every move is taken back with
+     * undoLastMove, so this takes O(numMoves) and allocates nothing, and the moves that could
+     * be redone are forgotten.
+     *
+     * @post        numMoves = 0 AND canUndo() = false AND canRedo() = false AND
+     *              [every position on the board is ' ']
+     */
+    public void clearBoard();
+
     /**
      * Returns the char that is in position pos of the game board.  If there is no token a blank
      * space character is returned.
@@ -120,40 +181,96 @@ public interface IGameBoard {
     @Override
     public String toString();
 
+
     /**
      * Checks column c to determine if that column is available to be played.
      *
      * @param c     Column to check if free.
      * @return      true if column is able to accept another token,
      *              false otherwise.
-     * @pre         c >= MIN_COLUMNS and c <= NUM_COLUMNS
-     * @post        checkIfFree = true || checkIfFree = false
+     * @pre         c >= MIN_COLUMN and c < numColumns
+     * @post        checkIfFree = [getColumnHeight(c) < numRows] AND
+     *              #board = board
      */
+    default public boolean checkIfFree(int c){ return getColumnHeight(c) < getNumRows(); }
 
     /**
-     * Checks column c to determine if that column is available to be played.
+     * Returns the number of tokens in column c, which is also the row the next token
+     * placed in column c will land in.
      *
-     * @param c     Column to check if free.
-     * @return      true if column is able to accept another token,
-     *              false otherwise.
-     * @pre         c >= MIN_COLUMNS and c <= NUM_COLUMNS
-     * @post        checkIfFree = true || checkIfFree = false
+     * @param c     Column to get the height of.
+     * @return      the number of tokens in column c
+     * @pre         c >= MIN_COLUMN and c < numColumns
+     * @post        MIN_ROW <= getColumnHeight <= numRows AND
+     *              #board = board
      */
-    default public boolean checkIfFree(int c){
+    public int getColumnHeight(int c);
 
-        BoardPosition temp = new BoardPosition(MIN_ROW, c);
-
-        for (int i = 1; i <= getNumRows(); i++){
-
-            if (whatsAtPos(temp) == ' ') return true;
+    /**
+     * Returns a deep copy of the board that can be changed without changing this board,
+     * for example by a search running on another thread.
+     *
+     * @return      a new board with the same size, tokens and move count as this board
+     * @post        copy.toString() = toString() AND
+     *              copy.getZobristHash() = getZobristHash() AND
+     *              #board = board
+     */
+    public IGameBoard copy();
 
-            temp = new BoardPosition(i, c);
+    /**
+     * Returns the Zobrist hash of the board: the XOR of Zobrist.key(p, r, c) for every token
+     * p at <r, c>. Boards keep it up to date on every placeToken and removeToken, so two
+     * boards with the same tokens in the same cells have the same hash no matter which order
+     * the tokens were placed in.
+     *
+     * @return      the Zobrist hash of the board
+     * @post        getZobristHash = [XOR of the keys of every placed token] AND
+     *              #board = board
+     */
+    public long getZobristHash();
 
-        }
+    /**
+     * Returns a static evaluation of the board for player p: the sum, over every numToWin long
+     * window of cells that holds p's tokens and nothing else, of the square of the number of
+     * tokens in it. The first call counts the whole board, after that boards keep the counts
+     * up to date on every placeToken and removeToken, so later calls take O(1).
+     *
+     * @param p     a player token
+     * @return      the line score of p
+     * @post        getLineScore >= 0 AND
+     *              #board = board
+     */
+    public int getLineScore(char p);
 
-        return false;
+    /**
+     * Returns how many numToWin long windows of cells hold exactly count of p's tokens and
+     * nothing else. The counts are kept the same way as for getLineScore.
+     *
+     * @param p         a player token
+     * @param count     the number of p's tokens in the window
+     * @return          the number of such windows
+     * @pre             1 <= count <= numToWin
+     * @post            getOpenLines >= 0 AND
+     *                  #board = board
+     */
+    public int getOpenLines(char p, int count);
 
-    }
+    /**
+     * Returns the char that is at row r and column c of the game board.  If there is no token a
+     * blank space character is returned.  Implementations should override this so that looking
+     * at a cell does not have to create a BoardPosition.
+     *
+     * @param r         The row that is being looked at.
+     * @param c         The column that is being looked at.
+     * @return          the char that is at <r, c> on the game board.  If there is no token at
+     *                  the spot it returns a blank space character: ' '.
+     * @pre             MIN_ROW <= r <= numRows AND
+     *                  MIN_COLUMN <= c <= numColumns
+     * @post            whatsAtPos = [Player Token] OR
+     *                  whatsAtPos = ' '
+     *                  #board = board
+     */
+    default public char whatsAtPos(int r, int c){ return whatsAtPos(new BoardPosition(r, c)); }
 
     /**
      * Returns true if player player is at position pos.
@@ -166,7 +283,20 @@ public interface IGameBoard {
      *                  MIN_COLUMN <= column <= numColumns
      * @post            Returns true || false AND #board = board
      */
-    default public boolean isPlayerAtPos(BoardPosition pos, char player){ return (whatsAtPos(pos) == player); }
+    default public boolean isPlayerAtPos(BoardPosition pos, char player){ return isPlayerAtPos(pos.getRow(), pos.getColumn(), player); }
+
+    /**
+     * Returns true if player player is at row r and column c.
+     *
+     * @param r         The row that is being looked at.
+     * @param c         The column that is being looked at.
+     * @param player    Which player token is being checked.
+     * @return          true if the player is at <r, c>, otherwise it returns false.
+     * @pre             MIN_ROW <= r <= numRows AND
+     *                  MIN_COLUMN <= c <= numColumns
+     * @post            Returns true || false AND #board = board
+     */
+    default public boolean isPlayerAtPos(int r, int c, char player){ return (whatsAtPos(r, c) == player); }
 
     /**
      * Checks the game board to see if the last token placed, p, resulted
@@ -184,143 +314,31 @@ public interface IGameBoard {
      *              checkHorizWin = false AND
      *              #board = board
      */
-    default public boolean checkHorizWin(BoardPosition pos, char p){
-
-        // Variables
-        int numTokensInARow = 1;
-        int col = pos.getColumn();
-        int row = pos.getRow();
-        boolean done = false;
-        BoardPosition temp;
-
-        // If the player token is not in the first column and
-        // not in the last column this if statement runs
-        if (col > MIN_COLUMN && col < getNumColumns()) {
-
-            // While loop to iterate through the game board
-            // horizontally to the left to determine if
-            // equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
+    default public boolean checkHorizWin(BoardPosition pos, char p){ return checkHorizWin(pos.getRow(), pos.getColumn(), p); }
 
-                col = temp.getColumn();
-
-                // If the temporary column position is less
-                // than or equal to the 1st column then
-                // the while loop is quit
-                if (col <= MIN_COLUMN) done = true;
-
-            }
-
-            // Variable are reset
-            done = false;
-            col = pos.getColumn();
-
-            // While loop to iterate through the game board
-            // horizontally to the right to determine if
-            // equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-
-                // If the temporary column position is greater
-                // than or equal to the last column then
-                // the while loop is quit
-                if (col >= getNumColumns()) done = true;
-
-            }
-
-        }
-        // If the player token is in the 1st column this if statement runs
-        else if (col < getNumColumns()){
-
-            // While loop to iterate through the game board
-            // horizontally to the right to determine if
-            // equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-
-                // If the temporary column position is greater
-                // than or equal to the last column then
-                // the while loop is quit
-                if (col >= getNumColumns()) done = true;
-
-            }
-
-        }
-        // If the player token is in the last column this else statement runs
-        else{
-
-            // While loop to iterate through the game board
-            // horizontally to the left to determine if
-            // equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-
-                // If the temporary column position is less
-                // than or equal to the 1st column then
-                // the while loop is quit
-                if (col <= MIN_COLUMN) done = true;
-
-            }
+    /**
+     * Checks the game board to see if the last token placed, p, at row r and column c
+     * resulted in the number of tokens needed to win in a row horizontally.
+     *
+     * @param r     The row the most recent token was placed in.
+     * @param c     The column the most recent token was placed in.
+     * @param p     The player token that is being checked for a horizontal win.
+     * @return      true if the player has the number of tokens need to win in a row
+     *              horizontally through <r, c>.  Otherwise, it returns false.
+     * @pre         MIN_ROW <= r < numRows AND
+     *              MIN_COLUMN <= c < numColumns
+     * @post        If numTokensInARow >= numToWin then checkHorizWin = true else
+     *              checkHorizWin = false AND
+     *              #board = board
+     */
+    default public boolean checkHorizWin(int r, int c, char p){
 
-        }
+        // The token at <r, c> counts once, then the walks to the
+        // left and to the right add the matching tokens next to it
+        int numTokensInARow = 1 + countInDirection(r, c, 0, -STEP, p) + countInDirection(r, c, 0, STEP, p);
 
-        // Returns true if the number of tokens in a row is
-        // greater than or equal to the number needed in a row
-        // to win
         return (numTokensInARow >= getNumToWin());
 
-
     }
 
     /**
@@ -339,142 +357,29 @@ public interface IGameBoard {
      *              checkVertWin = false AND
      *              #board = board
      */
-    default public boolean checkVertWin(BoardPosition pos, char p){
+    default public boolean checkVertWin(BoardPosition pos, char p){ return checkVertWin(pos.getRow(), pos.getColumn(), p); }
 
-        // Variables
-        int numTokensInARow = 1;
-        int col = pos.getColumn();
-        int row = pos.getRow();
-        boolean done = false;
-        BoardPosition temp;
-
-        // If the player token is not in the first row
-        // or the last row this if statement is run
-        if (row > MIN_ROW && row < getNumRows()) {
-
-            // While loop to iterate through the game board
-            // vertically down to determine if equivalent
-            // tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row then
-                // the while loop is quit
-                if (row <= MIN_ROW) done = true;
-
-            }
-
-            // Variables are reset
-            done = false;
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up to determine if equivalent
-            // tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row then
-                // the while loop is quit
-                if (row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If the player token is on the first row this if else
-        // statement is run
-        else if (row == MIN_ROW){
-
-            // While loop to iterate through the game board
-            // vertically up to determine if equivalent
-            // tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row then
-                // the while loop is quit
-                if (row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If the player token is in the last row this
-        // else statement is run
-        else{
-
-            // While loop to iterate through the game board
-            // vertically down to determine if equivalent
-            // tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row then
-                // the while loop is quit
-                if (row <= MIN_ROW) done = true;
-
-            }
+    /**
+     * Checks the game board to see if the last token placed, p, at row r and column c
+     * resulted in the number of tokens needed to win in a row vertically.
+     *
+     * @param r     The row the most recent token was placed in.
+     * @param c     The column the most recent token was placed in.
+     * @param p     The player token that is being checked for a vertical win.
+     * @return      true if the player has the number of tokens need to win in a row
+     *              vertically through <r, c>.  Otherwise, it returns false.
+     * @pre         MIN_ROW <= r < numRows AND
+     *              MIN_COLUMN <= c < numColumns
+     * @post        if numTokensInARow >= numToWin then checkVertWin = true else
+     *              checkVertWin = false AND
+     *              #board = board
+     */
+    default public boolean checkVertWin(int r, int c, char p){
 
-        }
+        // The token at <r, c> counts once, then the walks
+        // down and up add the matching tokens next to it
+        int numTokensInARow = 1 + countInDirection(r, c, -STEP, 0, p) + countInDirection(r, c, STEP, 0, p);
 
-        // Returns true if the number of tokens in a row is
-        // greater than or equal to the number needed in a row
-        // to win
         return (numTokensInARow >= getNumToWin());
 
     }
@@ -495,586 +400,68 @@ public interface IGameBoard {
      *              checkDiagWin = false AND
      *              #board = board
      */
-    default public boolean checkDiagWin(BoardPosition pos, char p){
-
-        int numTokensInARow = 1;
-        int col = pos.getColumn();
-        int row = pos.getRow();
-        boolean done = false;
-        BoardPosition temp;
-
-        // If the player token is somewhere on the board that is not the edges
-        if (col > MIN_COLUMN && row > MIN_ROW && col < getNumColumns() && row < getNumRows()){
-
-            // While loop to iterate through the game board
-            // vertically down to and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is less than
-                // or equal to the 1st row then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row <= MIN_ROW) done = true;
-
-            }
-
-            // Variables are reset
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row >= getNumRows()) done = true;
-
-            }
-
-            // Returns true if the number of tokens in a row is
-            // greater than or equal to the number needed in a row
-            // to win
-            if (numTokensInARow >= getNumToWin()) return true;
-
-            // Variables are reset
-            numTokensInARow = 1;
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row >= getNumRows()) done = true;
-
-            }
-
-            // Variables are reset
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically down and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row <= MIN_ROW) done = true;
+    default public boolean checkDiagWin(BoardPosition pos, char p){ return checkDiagWin(pos.getRow(), pos.getColumn(), p); }
 
-            }
-
-        }
-        // if the player token is on the right edge and not the bottom or top row
-        else if (col > MIN_COLUMN && row > MIN_ROW && row < getNumRows()){
-
-            // While loop to iterate through the game board
-            // vertically down and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row <= MIN_ROW) done = true;
-
-            }
-
-            // Returns true if the number of tokens in a row is
-            // greater than or equal to the number needed in a row
-            // to win
-            if (numTokensInARow >= getNumToWin()) return true;
-
-            // Variables are reset
-            numTokensInARow = 1;
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If the player token is on left edge and not on bottom or top row
-        else if (row > MIN_ROW && col == MIN_COLUMN && row < getNumRows()){
-
-            // While loop to iterate through the game board
-            // vertically down and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row <= MIN_ROW) done = true;
-
-            }
-
-            // Returns true if the number of tokens in a row is
-            // greater than or equal to the number needed in a row
-            // to win
-            if (numTokensInARow >= getNumToWin()) return true;
-
-            // Variables are reset
-            numTokensInARow = 1;
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If player token is on bottom row and not in corners
-        else if (col < getNumColumns() && col > MIN_COLUMN && row == MIN_ROW){
-
-            // While loop to iterate through the game board
-            // vertically up and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row >= getNumRows()) done = true;
-
-            }
-
-            // Returns true if the number of tokens in a row is
-            // greater than or equal to the number needed in a row
-            // to win
-            if (numTokensInARow >= getNumToWin()) return true;
-
-            // Variables are reset
-            numTokensInARow = 1;
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically up and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If player token is on top row and not in corners
-        else if (col < getNumColumns() && col > MIN_COLUMN && row == getNumRows()){
-
-            // While loop to iterate through the game board
-            // vertically down and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row <= MIN_ROW) done = true;
-
-            }
-
-            // Returns true if the number of tokens in a row is
-            // greater than or equal to the number needed in a row
-            // to win
-            if (numTokensInARow >= getNumToWin()) return true;
-
-            // Variables are rest
-            numTokensInARow = 1;
-            done = false;
-            col = pos.getColumn();
-            row = pos.getRow();
-
-            // While loop to iterate through the game board
-            // vertically down and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row <= MIN_ROW) done = true;
-
-            }
-
-        }
-        // If player token is in bottom left corner
-        else if (col == MIN_COLUMN && row == MIN_ROW){
-
-            // While loop to iterate through the game board
-            // vertically up and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done){
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If token is in bottom right corner
-        else if (col == getNumColumns() && row == MIN_ROW){
-
-            // While loop to iterate through the game board
-            // vertically up and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row + STEP, col - STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
-
-                // If the temporary row position is greater
-                // than or equal to the last row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row >= getNumRows()) done = true;
-
-            }
-
-        }
-        // If player token is in top left corner
-        else if (col == MIN_COLUMN && row == getNumRows()){
-
-            // While loop to iterate through the game board
-            // vertically down and to the right to determine
-            // if equivalent tokens are in a row
-            while (!done) {
-
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col + STEP);
-
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
-
-                col = temp.getColumn();
-                row = temp.getRow();
+    /**
+     * Checks the game board to see if the last token placed, p, at row r and column c
+     * resulted in the number of tokens needed to win in a row diagonally.
+     *
+     * @param r     The row the most recent token was placed in.
+     * @param c     The column the most recent token was placed in.
+     * @param p     The player token that is being checked for a diagonal win.
+     * @return      true if the player has the number of tokens need to win in a row
+     *              on either diagonal through <r, c>.  Otherwise, it returns false.
+     * @pre         MIN_ROW <= r < numRows AND
+     *              MIN_COLUMN <= c < numColumns
+     * @post        If numTokensInARow >= numToWin then checkDiagWin = true else
+     *              checkDiagWin = false AND
+     *              #board = board
+     */
+    default public boolean checkDiagWin(int r, int c, char p){
 
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is greater than
-                // or equal to the last column then the while loop
-                // is quit
-                if (col >= getNumColumns() || row <= MIN_ROW) done = true;
+        // Down and to the left plus up and to the right
+        int numTokensInARow = 1 + countInDirection(r, c, -STEP, -STEP, p) + countInDirection(r, c, STEP, STEP, p);
 
-            }
+        if (numTokensInARow >= getNumToWin()) return true;
 
-        }
-        // If player token is in top right corner
-        else{
+        // Up and to the left plus down and to the right
+        numTokensInARow = 1 + countInDirection(r, c, STEP, -STEP, p) + countInDirection(r, c, -STEP, STEP, p);
 
-            // While loop to iterate through the game board
-            // vertically down and to the left to determine
-            // if equivalent tokens are in a row
-            while (!done){
+        return (numTokensInARow >= getNumToWin());
 
-                // Temporary BoardPosition variable used to
-                // iterate through the game board
-                temp = new BoardPosition(row - STEP, col - STEP);
+    }
 
-                // If the token found at the temporary board
-                // position variable is equivalent to the
-                // player token passed then numTokensInARow
-                // is increased by 1 otherwise the while loop
-                // is finished
-                if (isPlayerAtPos(temp, p)) numTokensInARow++;
-                else done = true;
+    /**
+     * Counts how many of player p's tokens are in an unbroken line starting next to
+     * <r, c> and moving dr rows and dc columns at a time. The cell <r, c> itself is
+     * not counted. The walk stops at the edge of the board or at numToWin - 1 tokens,
+     * since more than that can never change the result of a win check.
+     *
+     * @param r     The row the walk starts from.
+     * @param c     The column the walk starts from.
+     * @param dr    The row step, one of -STEP, 0 or STEP.
+     * @param dc    The column step, one of -STEP, 0 or STEP.
+     * @param p     The player token being counted.
+     * @return      the number of matching tokens next to <r, c> in that direction
+     * @post        #board = board
+     */
+    private int countInDirection(int r, int c, int dr, int dc, char p){
 
-                col = temp.getColumn();
-                row = temp.getRow();
+        int count = 0;
+        int row = r + dr;
+        int col = c + dc;
 
-                // If the temporary row position is less
-                // than or equal to the 1st row or the
-                // temporary column position is less than
-                // or equal to the 1st column then the while loop
-                // is quit
-                if (col <= MIN_COLUMN || row <= MIN_ROW) done = true;
+        while (count < getNumToWin() - STEP && row >= MIN_ROW && row < getNumRows()
+                && col >= MIN_COLUMN && col < getNumColumns() && isPlayerAtPos(row, col, p)){
 
-            }
+            count++;
+            row += dr;
+            col += dc;
 
         }
 
-        // Returns true if the number of tokens in a row is
-        // greater than or equal to the number needed in a row
-        // to win
-        return (numTokensInARow >= getNumToWin());
+        return count;
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package cpsc2150.extendedConnectX;
+
+/**
+ * Counts, for every player, the numToWin long windows of a board that hold only that
+ * player's tokens, grouped by how many tokens are in them. A board keeps one of these up
+ * to date as tokens are placed and removed, so a search can read a static evaluation in
+ * O(1) instead of scanning every line of the board at each leaf.
+ *
+ * Placing or removing a token only touches the windows through its cell, at most
+ * 4 * numToWin of them. Every window is one long: MAX_PLAYERS fields of COUNT_BITS bits
+ * holding each player's token count, the total token count, and the player that holds the
+ * window when only one does.
+ *
+ * Players are told apart by Zobrist.tokenIndex, so two tokens that fold onto the same index
+ * are counted as the same player.
+ *
+ * @invariant       windows.length = DIRECTIONS * numRows * numColumns AND
+ *                  lines[i][k] = [number of windows holding k tokens of player i and nothing else] AND
+ *                  score[i] = [sum of k * k * lines[i][k] over 1 <= k <= numToWin]
+ */
+final class LineCounts {
+
+    private static final int DIRECTIONS = 4;
+    private static final int [] ROW_STEP = {0, 1, 1, 1};
+    private static final int [] COLUMN_STEP = {1, 0, 1, -1};
+
+    // Layout of a window long, from the lowest bit up
+    private static final int COUNT_BITS = 5;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int TOTAL_SHIFT = COUNT_BITS * ConnectXController.MAX_PLAYERS;
+    private static final int OWNER_SHIFT = TOTAL_SHIFT + COUNT_BITS;
+    private static final long OWNER_MASK = 0xF;
+    private static final long TOTAL_ONE = 1L << TOTAL_SHIFT;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int numToWin;
+    private final long [] windows;
+    private final int [][] lines;
+    private final int [] score;
+
+    /**
+     * Counts the windows of every token already on board.
+     *
+     * @param board     the board to count.
+     * @post            [the counts match board]
+     */
+    LineCounts(IGameBoard board){
+
+        numRows = board.getNumRows();
+        numColumns = board.getNumColumns();
+        numToWin = board.getNumToWin();
+        windows = new long[DIRECTIONS * numRows * numColumns];
+        lines = new int[ConnectXController.MAX_PLAYERS][numToWin + 1];
+        score = new int[ConnectXController.MAX_PLAYERS];
+
+        for (int c = IGameBoard.MIN_COLUMN; c < numColumns; c++){
+
+            for (int r = IGameBoard.MIN_ROW; r < board.getColumnHeight(c); r++) place(board.whatsAtPos(r, c), r, c);
+
+        }
+
+    }
+
+    private LineCounts(LineCounts other){
+
+        numRows = other.numRows;
+        numColumns = other.numColumns;
+        numToWin = other.numToWin;
+        windows = other.windows.clone();
+        lines = new int[other.lines.length][];
+        score = other.score.clone();
+
+        for (int i = IGameBoard.START; i < lines.length; i++) lines[i] = other.lines[i].clone();
+
+    }
+
+    LineCounts copy(){ return new LineCounts(this); }
+
+    /**
+     * @param p     a player token
+     * @return      the sum, over every window holding only p's tokens, of the square of the
+     *              number of tokens in it
+     */
+    int score(char p){ return score[Zobrist.tokenIndex(p)]; }
+
+    /**
+     * @param p         a player token
+     * @param count     a number of tokens
+     * @return          the number of windows holding count of p's tokens and nothing else
+     * @pre             1 <= count <= numToWin
+     */
+    int lines(char p, int count){ return lines[Zobrist.tokenIndex(p)][count]; }
+
+    /**
+     * @pre     <r, c> was empty and p was just placed there
+     * @post    [the counts include p at <r, c>]
+     */
+    void place(char p, int r, int c){
+
+        int player = Zobrist.tokenIndex(p);
+        int shift = player * COUNT_BITS;
+
+        for (int d = IGameBoard.START; d < DIRECTIONS; d++){
+
+            for (int k = IGameBoard.START; k < numToWin; k++){
+
+                int i = windowAt(d, r - k * ROW_STEP[d], c - k * COLUMN_STEP[d]);
+
+                if (i < IGameBoard.START) continue;
+
+                long w = windows[i];
+                int total = (int) ((w >>> TOTAL_SHIFT) & COUNT_MASK);
+                int owner = (int) ((w >>> OWNER_SHIFT) & OWNER_MASK);
+
+                if (total > 0 && tokensOf(w, owner) == total) removeWindow(owner, total);
+
+                w += (1L << shift) + TOTAL_ONE;
+
+                // Only a window that stays with one player keeps an owner
+                if (tokensOf(w, player) == total + 1){
+
+                    w = (w & ~(OWNER_MASK << OWNER_SHIFT)) | ((long) player << OWNER_SHIFT);
+                    addWindow(player, total + 1);
+
+                }
+
+                windows[i] = w;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * @pre     p is at <r, c> and is about to be taken off the board
+     * @post    [the counts no longer include p at <r, c>]
+     */
+    void remove(char p, int r, int c){
+
+        int player = Zobrist.tokenIndex(p);
+        int shift = player * COUNT_BITS;
+
+        for (int d = IGameBoard.START; d < DIRECTIONS; d++){
+
+            for (int k = IGameBoard.START; k < numToWin; k++){
+
+                int i = windowAt(d, r - k * ROW_STEP[d], c - k * COLUMN_STEP[d]);
+
+                if (i < IGameBoard.START) continue;
+
+                long w = windows[i];
+                int total = (int) ((w >>> TOTAL_SHIFT) & COUNT_MASK);
+                boolean owned = tokensOf(w, player) == total;
+
+                if (owned) removeWindow(player, total);
+
+                w -= (1L << shift) + TOTAL_ONE;
+                total--;
+
+                if (owned){
+
+                    if (total > 0) addWindow(player, total);
+
+                }
+                else if (total > 0){
+
+                    // The window was shared, the token taken out may leave a single owner
+                    for (int other = IGameBoard.START; other < ConnectXController.MAX_PLAYERS; other++){
+
+                        if (tokensOf(w, other) == total){
+
+                            w = (w & ~(OWNER_MASK << OWNER_SHIFT)) | ((long) other << OWNER_SHIFT);
+                            addWindow(other, total);
+                            break;
+
+                        }
+
+                    }
+
+                }
+
+                windows[i] = w;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * @return      the index in windows of the window starting at <r, c> in direction d, or -1
+     *              if it does not fit on the board
+     */
+    private int windowAt(int d, int r, int c){
+
+        int endRow = r + (numToWin - 1) * ROW_STEP[d];
+        int endColumn = c + (numToWin - 1) * COLUMN_STEP[d];
+
+        if (r < IGameBoard.MIN_ROW || c < IGameBoard.MIN_COLUMN || c >= numColumns || endRow >= numRows
+                || endColumn < IGameBoard.MIN_COLUMN || endColumn >= numColumns) return -1;
+
+        return (d * numRows + r) * numColumns + c;
+
+    }
+
+    private static int tokensOf(long w, int player){ return (int) ((w >>> (player * COUNT_BITS)) & COUNT_MASK); }
+
+    private void addWindow(int player, int count){
+
+        lines[player][count]++;
+        score[player] += count * count;
+
+    }
+
+    private void removeWindow(int player, int count){
+
+        lines[player][count]--;
+        score[player] -= count * count;
+
+    }
+
+}
@@ -0,0 +1,555 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A computer player that uses Monte Carlo Tree Search with the UCT selection rule. It works
+ * for any number of players, which makes it usable on large boards with many players where
+ * an alpha-beta search can not look deep enough.
+ *
+ * Every iteration walks down the tree to a leaf, adds one child, finishes the game with
+ * random moves on the worker's own copy of the board and credits the result to every node
+ * on the path. The random playout only checks the last placed token for a win, and takes
+ * its moves back afterwards with removeToken, so it allocates nothing.
+ *
+ * The tree is kept between moves. When selectColumn is called again, the node matching the
+ * new position is found among the moves played since, and its subtree becomes the new root.
+ *
+ * With more than one thread, every thread runs its own playouts and shares the tree under
+ * one lock. A node on a path that is still being played out counts as lost (virtual loss),
+ * so other threads are steered to different parts of the tree.
+ *
+ * An interrupt of the thread that called selectColumn stops the search, for example when the
+ * move is cancelled. The helper threads are stopped as well and waited for, so none of them
+ * is still working on the tree when selectColumn returns. The interrupt is kept for the
+ * caller, and the best move found so far is returned.
+ *
+ * @invariant       iterations >= 1 AND
+ *                  timeLimitMillis >= 0 AND
+ *                  threads >= 1
+ */
+public class MonteCarloAI implements IComputerPlayer {
+
+    public static final int DEFAULT_ITERATIONS = 100000;
+    public static final double DEFAULT_EXPLORATION = 1.4;
+
+    private static final int TIE = -1;
+    private static final int NO_MOVE = -1;
+    private static final long NANOS_PER_MILLI = 1000000;
+    private static final long NANOS_PER_SECOND = 1000000000;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final int iterations;
+    private final long timeLimitMillis;
+    private final int threads;
+    private final double exploration;
+    private ExecutorService helpers;
+
+    // The tree, guarded by this
+    private Node root;
+
+    // Per search state
+    private char [] tokens;
+    private int numPlayers;
+    private long deadline;
+    private final AtomicLong playouts = new AtomicLong();
+    private long elapsedNanos;
+
+    // Set when the caller is interrupted, so the helper threads stop too
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    /**
+     * @post    [a single threaded player with DEFAULT_ITERATIONS playouts and
+     *          NegamaxAI.DEFAULT_TIME_LIMIT is created]
+     */
+    public MonteCarloAI(){ this(DEFAULT_ITERATIONS, NegamaxAI.DEFAULT_TIME_LIMIT, 1); }
+
+    /**
+     * @param iterations        the number of playouts per move.
+     * @param timeLimitMillis   the time budget for one move, or NegamaxAI.NO_TIME_LIMIT.
+     * @param threads           the number of threads to run playouts on.
+     * @pre                     iterations >= 1 AND timeLimitMillis >= 0 AND threads >= 1
+     * @post                    [a player with DEFAULT_EXPLORATION is created]
+     */
+    public MonteCarloAI(int iterations, long timeLimitMillis, int threads){
+
+        this.iterations = iterations;
+        this.timeLimitMillis = timeLimitMillis;
+        this.threads = threads;
+        exploration = DEFAULT_EXPLORATION;
+
+    }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        long start = System.nanoTime();
+
+        this.tokens = tokens;
+        this.numPlayers = numPlayers;
+        deadline = start + timeLimitMillis * NANOS_PER_MILLI;
+        playouts.set(0);
+        stopped = false;
+        failure = null;
+
+        reuseTree(board, turn);
+
+        if (threads > 1 && helpers == null){
+
+            helpers = Executors.newFixedThreadPool(threads - 1, r -> {
+
+                Thread t = new Thread(r, "MonteCarloAI");
+                t.setDaemon(true);
+                return t;
+
+            });
+
+        }
+
+        CountDownLatch finished = new CountDownLatch(threads - 1);
+
+        for (int i = IGameBoard.START; i < threads - 1; i++){
+
+            Worker worker = new Worker(board.copy(), SEED + i + 1);
+
+            helpers.execute(() -> {
+
+                try {
+
+                    worker.run();
+
+                } catch (RuntimeException | Error e) {
+
+                    failure = e;
+                    stopped = true;
+
+                } finally {
+
+                    finished.countDown();
+
+                }
+
+            });
+
+        }
+
+        new Worker(board.copy(), SEED).run();
+
+        boolean interrupted = Thread.currentThread().isInterrupted();
+
+        // The helpers are always waited for, even when interrupted, so none is left on the tree
+        while (true){
+
+            if (interrupted) stopped = true;
+
+            try {
+
+                finished.await();
+                break;
+
+            } catch (InterruptedException e) {
+
+                interrupted = true;
+
+            }
+
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+
+        if (failure != null) throw new IllegalStateException("Monte Carlo worker failed", failure);
+
+        elapsedNanos = System.nanoTime() - start;
+
+        return bestMove();
+
+    }
+
+    /**
+     * @return      the number of playouts run during the last selectColumn
+     */
+    public long getPlayouts(){ return playouts.get(); }
+
+    /**
+     * @return      the playouts per second of the last selectColumn
+     */
+    public long getPlayoutsPerSecond(){ return elapsedNanos == 0 ? 0 : playouts.get() * NANOS_PER_SECOND / elapsedNanos; }
+
+    /**
+     * @return      how many playouts the current root has been credited with, including ones
+     *              kept from earlier moves
+     */
+    public synchronized int getRootVisits(){ return root == null ? 0 : root.visits; }
+
+    /**
+     * Stops the helper threads.
+     *
+     * @post    [the helper threads are shut down, a later selectColumn starts new ones]
+     */
+    public void shutdown(){
+
+        if (helpers != null) helpers.shutdown();
+
+        helpers = null;
+
+    }
+
+    /**
+     * Makes the root match board. If the current position is a few moves below the old root
+     * the matching subtree is kept, otherwise a new tree is started.
+     */
+    private synchronized void reuseTree(IGameBoard board, int turn){
+
+        Node found = null;
+
+        if (root != null) found = find(root, board.getZobristHash(), turn, numPlayers + 1);
+
+        if (found == null) found = new Node(null, NO_MOVE, (turn + numPlayers - 1) % numPlayers, board.getZobristHash());
+
+        found.parent = null;
+        root = found;
+
+        if (root.untried == null) root.initMoves(board);
+
+    }
+
+    private Node find(Node node, long hash, int turn, int depthLeft){
+
+        if (node.hash == hash && node.seatToMove(numPlayers) == turn) return node;
+
+        if (depthLeft == 0) return null;
+
+        for (int i = IGameBoard.START; i < node.numChildren; i++){
+
+            Node found = find(node.children[i], hash, turn, depthLeft - 1);
+
+            if (found != null) return found;
+
+        }
+
+        return null;
+
+    }
+
+    private synchronized int bestMove(){
+
+        Node best = null;
+
+        for (int i = IGameBoard.START; i < root.numChildren; i++){
+
+            Node child = root.children[i];
+
+            // A winning move is always played
+            if (child.terminal && child.winner == child.seat) return child.move;
+
+            if (best == null || child.visits > best.visits) best = child;
+
+        }
+
+        return best != null ? best.move : root.untried[IGameBoard.START];
+
+    }
+
+    /**
+     * Lets BoardAllocationCheck measure the random playout on its own.
+     *
+     * @return      a task that plays one random game from board to its end each time it is
+     *              run, on the same kind of worker selectColumn uses
+     * @pre         [nobody has won on board] AND board.checkTie() = false AND
+     *              2 <= numPlayers <= tokens.length AND 0 <= turn < numPlayers
+     * @post        [every run leaves board as it was]
+     */
+    Runnable playoutTask(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        this.tokens = tokens;
+        this.numPlayers = numPlayers;
+
+        Worker worker = new Worker(board, SEED);
+
+        return () -> worker.playout(turn, IGameBoard.START);
+
+    }
+
+    private boolean done(){
+
+        return playouts.get() >= iterations || (timeLimitMillis != NegamaxAI.NO_TIME_LIMIT && System.nanoTime() > deadline)
+                || stopped || Thread.currentThread().isInterrupted();
+
+    }
+
+    /**
+     * One node of the search tree. A node is the position after seat played move.
+     */
+    private static final class Node {
+
+        Node parent;
+        final int move;
+        final int seat;
+        final long hash;
+
+        Node [] children;
+        int numChildren;
+        int [] untried;
+        int numUntried;
+
+        int visits;
+        double wins;
+        int virtualLoss;
+
+        boolean terminal;
+        int winner = TIE;
+
+        Node(Node parent, int move, int seat, long hash){
+
+            this.parent = parent;
+            this.move = move;
+            this.seat = seat;
+            this.hash = hash;
+
+        }
+
+        int seatToMove(int numPlayers){ return (seat + 1) % numPlayers; }
+
+        void initMoves(IGameBoard board){
+
+            int [] order = NegamaxAI.centerFirstOrder(board.getNumColumns());
+
+            untried = new int[order.length];
+            children = new Node[order.length];
+
+            for (int c : order){
+
+                if (board.checkIfFree(c)) untried[numUntried++] = c;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Runs playouts on its own copy of the board until the search is done.
+     */
+    private final class Worker {
+
+        private final IGameBoard board;
+        private final int [] path;
+        private final int [] freeColumns;
+        private long random;
+
+        Worker(IGameBoard board, long seed){
+
+            this.board = board;
+            path = new int[board.getNumRows() * board.getNumColumns()];
+            freeColumns = new int[board.getNumColumns()];
+            random = seed == 0 ? 1 : seed;
+
+        }
+
+        void run(){
+
+            while (!done()){
+
+                int depth = IGameBoard.START;
+                Node node;
+
+                synchronized (MonteCarloAI.this){
+
+                    node = root;
+
+                    // Selection, down to a node that still has untried moves or ends the game
+                    while (!node.terminal && node.numUntried == 0 && node.numChildren > 0){
+
+                        node = select(node);
+                        node.virtualLoss++;
+                        board.placeToken(tokens[node.seat], node.move);
+                        path[depth++] = node.move;
+
+                    }
+
+                    // Expansion of one untried move
+                    if (!node.terminal && node.numUntried > 0){
+
+                        int i = nextInt(node.numUntried);
+                        int c = node.untried[i];
+                        int seat = node.seatToMove(numPlayers);
+
+                        node.untried[i] = node.untried[--node.numUntried];
+                        board.placeToken(tokens[seat], c);
+                        path[depth++] = c;
+
+                        Node child = new Node(node, c, seat, board.getZobristHash());
+
+                        if (board.checkForWin(c)){
+
+                            child.terminal = true;
+                            child.winner = seat;
+
+                        }
+                        else if (board.checkTie()) child.terminal = true;
+                        else child.initMoves(board);
+
+                        node.children[node.numChildren++] = child;
+                        node = child;
+                        node.virtualLoss++;
+
+                    }
+
+                }
+
+                int winner = node.terminal ? node.winner : playout(node.seatToMove(numPlayers), depth);
+
+                for (int i = depth - 1; i >= IGameBoard.START; i--) board.removeToken(path[i]);
+
+                playouts.incrementAndGet();
+
+                synchronized (MonteCarloAI.this){
+
+                    backPropagate(node, winner);
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Plays random moves from the worker's board until the game ends, then takes them all back.
+         *
+         * @param seat      the seat that moves first
+         * @param depth     the number of moves already on path
+         * @return          the seat that won, or TIE
+         * @post            #board = board
+         */
+        private int playout(int seat, int depth){
+
+            int played = depth;
+            int winner = TIE;
+
+            while (true){
+
+                int numFree = IGameBoard.START;
+
+                for (int c = IGameBoard.MIN_COLUMN; c < freeColumns.length; c++){
+
+                    if (board.checkIfFree(c)) freeColumns[numFree++] = c;
+
+                }
+
+                int c = freeColumns[nextInt(numFree)];
+
+                board.placeToken(tokens[seat], c);
+                path[played++] = c;
+
+                if (board.checkForWin(c)){
+
+                    winner = seat;
+                    break;
+
+                }
+
+                if (board.checkTie()) break;
+
+                seat = (seat + 1) % numPlayers;
+
+            }
+
+            while (played > depth) board.removeToken(path[--played]);
+
+            return winner;
+
+        }
+
+        /**
+         * @return      the child of node with the highest UCT value, counting virtual losses
+         */
+        private Node select(Node node){
+
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(Math.max(node.visits + node.virtualLoss, 1));
+
+            for (int i = IGameBoard.START; i < node.numChildren; i++){
+
+                Node child = node.children[i];
+                int n = child.visits + child.virtualLoss;
+                double value = (n == 0) ? Double.POSITIVE_INFINITY
+                        : child.wins / n + exploration * Math.sqrt(logVisits / n);
+
+                if (value > bestValue){
+
+                    bestValue = value;
+                    best = child;
+
+                }
+
+            }
+
+            return best;
+
+        }
+
+        private void backPropagate(Node node, int winner){
+
+            double tieShare = 1.0 / numPlayers;
+
+            for (Node n = node; n != null; n = n.parent){
+
+                n.visits++;
+
+                if (n.virtualLoss > 0) n.virtualLoss--;
+
+                if (winner == TIE) n.wins += tieShare;
+                else if (winner == n.seat) n.wins += 1;
+
+            }
+
+        }
+
+        /**
+         * @return      a random number from 0 to bound - 1, from a xorshift generator
+         */
+        private int nextInt(int bound){
+
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+
+            return (int) ((random >>> 1) % bound);
+
+        }
+
+    }
+
+    /**
+     * Prints playouts per second on an empty board for every thread count up to the number
+     * of cores.
+     *
+     * Arguments: rows columns numToWin numPlayers playouts
+     */
+    public static void main(String [] args){
+
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int numToWin = Integer.parseInt(args[2]);
+        int numPlayers = Integer.parseInt(args[3]);
+        int count = Integer.parseInt(args[4]);
+        IGameBoard board = new GameBoard(rows, cols, numToWin);
+
+        for (int t = 1; t <= Runtime.getRuntime().availableProcessors(); t *= 2){
+
+            MonteCarloAI search = new MonteCarloAI(count, NegamaxAI.NO_TIME_LIMIT, t);
+
+            search.selectColumn(board, ConnectXController.PLAYER_TOKENS, numPlayers, 0);
+            search.shutdown();
+
+            System.out.println(t + " threads: " + search.getPlayoutsPerSecond() + " playouts/sec");
+
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.Arrays;
+
+/**
+ * The moves of a board in the order they were placed, kept in two primitive arrays so that
+ * undo and redo take O(1) and need no objects. A board pushes every placeToken and pops every
+ * removeToken. Popped moves stay in the arrays above size until a different move is pushed,
+ * which is what redo plays again. Pushing the same move that would be redone keeps the rest
+ * of the redo moves, so a redo is just a placeToken of the next redo move.
+ *
+ * Columns are stored as bytes, which holds every column up to MAX_NUM_COLUMNS. The arrays
+ * start small and double when full, so a sparse board's history stays as small as its moves.
+ *
+ * @invariant       0 <= size <= redoLimit <= columns.length AND
+ *                  columns.length = tokens.length AND
+ *                  [columns[i] and tokens[i] are the column and token of move i for i < redoLimit]
+ */
+final class MoveHistory {
+
+    private static final int START_CAPACITY = 16;
+
+    private byte [] columns;
+    private char [] tokens;
+    private int size;
+    private int redoLimit;
+
+    MoveHistory(){
+
+        columns = new byte[START_CAPACITY];
+        tokens = new char[START_CAPACITY];
+
+    }
+
+    private MoveHistory(MoveHistory other){
+
+        columns = other.columns.clone();
+        tokens = other.tokens.clone();
+        size = other.size;
+        redoLimit = other.redoLimit;
+
+    }
+
+    MoveHistory copy(){ return new MoveHistory(this); }
+
+    /**
+     * Records that p was placed in column c.
+     *
+     * @post    size = #size + 1 AND
+     *          [redoLimit is kept if the move is the next redo move, otherwise it is size]
+     */
+    void push(char p, int c){
+
+        if (size < redoLimit && columns[size] == c && tokens[size] == p){
+
+            size++;
+            return;
+
+        }
+
+        if (size == columns.length){
+
+            columns = Arrays.copyOf(columns, size * 2);
+            tokens = Arrays.copyOf(tokens, size * 2);
+
+        }
+
+        columns[size] = (byte) c;
+        tokens[size] = p;
+        size++;
+        redoLimit = size;
+
+    }
+
+    /**
+     * Takes back the last move, leaving it to be redone.
+     *
+     * @pre     size > 0
+     * @post    size = #size - 1
+     */
+    void pop(){ size--; }
+
+    /**
+     * Forgets every move, keeping the arrays for the next game.
+     *
+     * @post    size = 0 AND redoLimit = 0
+     */
+    void clear(){
+
+        size = 0;
+        redoLimit = 0;
+
+    }
+
+    int size(){ return size; }
+
+    int redoLimit(){ return redoLimit; }
+
+    int column(int i){ return columns[i]; }
+
+    char token(int i){ return tokens[i]; }
+
+}
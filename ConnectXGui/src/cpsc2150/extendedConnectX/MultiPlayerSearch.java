@@ -0,0 +1,326 @@
+package cpsc2150.extendedConnectX;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A computer player for games of 3 to MAX_PLAYERS players, where the two player negamax
+ * search of NegamaxAI does not fit. Every seat moves in the turn order of the tokens it is
+ * given, which is ConnectXController's playerTokens. Two searches are available:
+ *
+ * MAX_N scores every position with a vector holding a value for each player, and every
+ * player picks the move that is best for itself. The values of one vector never add up to
+ * more than TOTAL, so once a player is sure to get v the player before it can get at most
+ * TOTAL - v, and the rest of the moves are cut off (shallow pruning).
+ *
+ * PARANOID assumes every other player plays against the searching player. That makes it a
+ * two sided search of a single value, with full alpha-beta pruning.
+ *
+ * The value of a position to a player is its share of TOTAL. A win is worth all of TOTAL, a
+ * tie splits it evenly, and otherwise every numToWin long window that only holds one
+ * player's tokens adds the square of its token count to that player's share.
+ *
+ * The line scores come from IGameBoard.getLineScore, which the board keeps up to date, so
+ * evaluating a position does not scan the board. All value vectors live in one int[][]
+ * that is allocated once per search, one row per ply, so the search itself allocates
+ * nothing no matter how many players there are.
+ *
+ * @invariant       maxDepth >= 1 AND
+ *                  timeLimitMillis >= 0
+ */
+public class MultiPlayerSearch implements IComputerPlayer {
+
+    public enum Mode { MAX_N, PARANOID }
+
+    public static final int DEFAULT_DEPTH = 4;
+
+    // What the values of all players in one vector add up to at most
+    static final int TOTAL = 1 << 20;
+
+    private static final int TIME_CHECK_MASK = 1023;
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final Mode mode;
+
+    // Per search state
+    private IGameBoard board;
+    private char [] tokens;
+    private int numPlayers;
+    private int rootSeat;
+    private int [] order;
+    private int [][] values;
+    private long [] raw;
+    private long deadline;
+    private boolean timed;
+    private boolean aborted;
+    private int rootMove;
+    private long nodes;
+    private int depthReached;
+    private long allocatedBytes;
+
+    /**
+     * @param maxDepth          the deepest search, in plies.
+     * @param timeLimitMillis   the time budget for one move, or NegamaxAI.NO_TIME_LIMIT.
+     * @param mode              MAX_N or PARANOID.
+     * @pre                     maxDepth >= 1 AND timeLimitMillis >= 0
+     * @post                    this.maxDepth = maxDepth AND
+     *                          this.timeLimitMillis = timeLimitMillis AND
+     *                          this.mode = mode
+     */
+    public MultiPlayerSearch(int maxDepth, long timeLimitMillis, Mode mode){
+
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.mode = mode;
+
+    }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        // Moves are tried on a copy so the game's move history keeps its redo list
+        this.board = board.copy();
+
+        long allocatedStart = allocatedBytes();
+
+        this.tokens = tokens;
+        this.numPlayers = numPlayers;
+        rootSeat = turn;
+        order = NegamaxAI.centerFirstOrder(board.getNumColumns());
+        values = new int[maxDepth + 2][numPlayers];
+        raw = new long[numPlayers];
+        deadline = System.nanoTime() + timeLimitMillis * NANOS_PER_MILLI;
+        timed = timeLimitMillis != NegamaxAI.NO_TIME_LIMIT;
+        aborted = false;
+        nodes = 0;
+        depthReached = 0;
+
+        // Until a search finishes, fall back to the most central free column
+        int bestColumn = IGameBoard.MIN_COLUMN;
+
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            if (board.checkIfFree(order[i])){
+
+                bestColumn = order[i];
+                break;
+
+            }
+
+        }
+
+        for (int depth = 1; depth <= maxDepth && !aborted; depth++){
+
+            if (mode == Mode.MAX_N) maxN(depth, IGameBoard.START, turn, TOTAL + 1);
+            else paranoid(depth, IGameBoard.START, turn, -1, TOTAL + 1);
+
+            if (!aborted){
+
+                bestColumn = rootMove;
+                depthReached = depth;
+
+            }
+
+        }
+
+        this.board = null;
+        allocatedBytes = allocatedBytes() - allocatedStart;
+
+        return bestColumn;
+
+    }
+
+    /**
+     * @return      the number of positions visited by the last call to selectColumn
+     */
+    public long getNodesSearched(){ return nodes; }
+
+    /**
+     * @return      the depth of the deepest search that finished in the last call to selectColumn
+     */
+    public int getDepthReached(){ return depthReached; }
+
+    /**
+     * @return      the heap bytes the last call to selectColumn allocated per position visited,
+     *              or 0 if the JVM can not measure allocation
+     */
+    public double getBytesPerNode(){ return nodes == 0 ? 0 : (double) allocatedBytes / nodes; }
+
+    /**
+     * Fills values[ply] with the value vector of the position where seat is to move,
+     * searched depth plies deep. At the root the best column is left in rootMove.
+     *
+     * @param limit     the value for seat at which the player before it would never play
+     *                  into this position, so the search can stop
+     * @post            #board = board
+     */
+    private void maxN(int depth, int ply, int seat, int limit){
+
+        int [] result = values[ply];
+        int [] child = values[ply + 1];
+        int next = (seat + 1) % numPlayers;
+        int best = -1;
+
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            int c = order[i];
+
+            if (!board.checkIfFree(c)) continue;
+
+            nodes++;
+            checkTime();
+            board.placeToken(tokens[seat], c);
+
+            if (!score(c, seat, ply + 1, child, depth)) maxN(depth - 1, ply + 1, next, TOTAL - Math.max(best, 0));
+
+            board.removeToken(c);
+
+            if (aborted) return;
+
+            if (child[seat] > best){
+
+                best = child[seat];
+                System.arraycopy(child, IGameBoard.START, result, IGameBoard.START, numPlayers);
+
+                if (ply == IGameBoard.START) rootMove = c;
+
+            }
+
+            // The player before this one already has something better than what is left for it here
+            if (best >= limit) return;
+
+        }
+
+    }
+
+    /**
+     * Returns the value for rootSeat of the position where seat is to move, searched depth
+     * plies deep, assuming every other seat plays against rootSeat. At the root the best
+     * column is left in rootMove.
+     *
+     * @post    #board = board
+     */
+    private int paranoid(int depth, int ply, int seat, int alpha, int beta){
+
+        int [] leaf = values[ply + 1];
+        int next = (seat + 1) % numPlayers;
+        boolean maximizing = seat == rootSeat;
+        int best = maximizing ? -1 : TOTAL + 1;
+
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            int c = order[i];
+
+            if (!board.checkIfFree(c)) continue;
+
+            nodes++;
+            checkTime();
+            board.placeToken(tokens[seat], c);
+
+            int value;
+
+            if (score(c, seat, ply + 1, leaf, depth)) value = leaf[rootSeat];
+            else value = paranoid(depth - 1, ply + 1, next, alpha, beta);
+
+            board.removeToken(c);
+
+            if (aborted) return 0;
+
+            if (maximizing ? value > best : value < best){
+
+                best = value;
+
+                if (ply == IGameBoard.START) rootMove = c;
+
+            }
+
+            if (maximizing) alpha = Math.max(alpha, best);
+            else beta = Math.min(beta, best);
+
+            if (alpha >= beta) break;
+
+        }
+
+        return best;
+
+    }
+
+    /**
+     * Scores the position after seat played in column c, if it does not need searching further.
+     *
+     * @param vector    where the value vector is written
+     * @return          true if vector holds the value, false if the position must be searched
+     * @post            #board = board
+     */
+    private boolean score(int c, int seat, int ply, int [] vector, int depth){
+
+        if (board.checkForWin(c)){
+
+            // Quicker wins are worth a little more
+            for (int p = IGameBoard.START; p < numPlayers; p++) vector[p] = 0;
+
+            vector[seat] = TOTAL - ply;
+
+        }
+        else if (board.checkTie()){
+
+            for (int p = IGameBoard.START; p < numPlayers; p++) vector[p] = TOTAL / numPlayers;
+
+        }
+        else if (depth <= 1) evaluate(vector);
+        else return false;
+
+        return true;
+
+    }
+
+    private void checkTime(){
+
+        if ((nodes & TIME_CHECK_MASK) == 0 && ((timed && System.nanoTime() > deadline) || Thread.currentThread().isInterrupted())) aborted = true;
+
+    }
+
+    /**
+     * Writes every player's share of TOTAL for the current board into vector.
+     *
+     * @post    #board = board AND
+     *          [vector[0 .. numPlayers - 1] add up to at most TOTAL]
+     */
+    private void evaluate(int [] vector){
+
+        long sum = 0;
+
+        for (int p = IGameBoard.START; p < numPlayers; p++){
+
+            raw[p] = board.getLineScore(tokens[p]);
+            sum += raw[p];
+
+        }
+
+        for (int p = IGameBoard.START; p < numPlayers; p++){
+
+            vector[p] = (sum == 0) ? TOTAL / numPlayers : (int) (raw[p] * TOTAL / sum);
+
+        }
+
+    }
+
+    /**
+     * @return      the bytes allocated by this thread so far, or 0 if the JVM can not tell
+     */
+    private static long allocatedBytes(){
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean){
+
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+
+        }
+
+        return 0;
+
+    }
+
+}
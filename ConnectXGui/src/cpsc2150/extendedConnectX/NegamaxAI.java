@@ -0,0 +1,446 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A computer player that searches the game tree with negamax and alpha-beta pruning.
+ * The search deepens one ply at a time until it reaches maxDepth or runs out of its time
+ * budget, and plays the best column of the deepest search that finished. The search works
+ * on one copy of the board per move, trying moves with placeToken and taking them back with
+ * removeToken, so the game's board and its move history, redo list included, are left alone.
+ *
+ * Positions are cached in a TranspositionTable keyed by the board's Zobrist hash, so a
+ * position reached through different move orders is only searched once per depth, and the
+ * best move found for it last time is tried first.
+ *
+ * Negamax is a two player search: the player to move is searched against the player
+ * whose turn comes next. In games with more than two players every other token only
+ * counts as a blocker.
+ *
+ * @invariant       maxDepth >= 1 AND
+ *                  timeLimitMillis >= 0
+ */
+public class NegamaxAI implements IComputerPlayer {
+
+    public static final int DEFAULT_DEPTH = 8;
+    public static final long DEFAULT_TIME_LIMIT = 1000;
+    public static final long NO_TIME_LIMIT = 0;
+    public static final long DEFAULT_TABLE_BYTES = 8L * 1024 * 1024;
+
+    static final int WIN_SCORE = 1000000000;
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    // Scores further from 0 than this are wins or losses a known number of plies away
+    static final int WIN_THRESHOLD = WIN_SCORE - IGameBoard.MAX_NUM_ROWS * IGameBoard.MAX_NUM_COLUMNS;
+
+    private static final int TIME_CHECK_MASK = 1023;
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private int maxDepth;
+    private long timeLimitMillis;
+    private TranspositionTable table;
+    private AtomicBoolean stopSignal;
+    private OpeningBook book;
+    private int firstDepth = 1;
+
+    // Per search state
+    private IGameBoard board;
+    private int [] order;
+    private long deadline;
+    private boolean timed;
+    private boolean aborted;
+    private long nodes;
+    private int depthReached;
+
+    /**
+     * Creates a player that searches up to DEFAULT_DEPTH plies within DEFAULT_TIME_LIMIT milliseconds.
+     *
+     * @post    maxDepth = DEFAULT_DEPTH AND
+     *          timeLimitMillis = DEFAULT_TIME_LIMIT
+     */
+    public NegamaxAI(){ this(DEFAULT_DEPTH, DEFAULT_TIME_LIMIT); }
+
+    /**
+     * @param maxDepth          the deepest search, in plies.
+     * @param timeLimitMillis   the time budget for one move, or NO_TIME_LIMIT to always search to maxDepth.
+     * @pre                     maxDepth >= 1 AND timeLimitMillis >= 0
+     * @post                    this.maxDepth = maxDepth AND
+     *                          this.timeLimitMillis = timeLimitMillis
+     */
+    public NegamaxAI(int maxDepth, long timeLimitMillis){ this(maxDepth, timeLimitMillis, new TranspositionTable(DEFAULT_TABLE_BYTES)); }
+
+    /**
+     * @param maxDepth          the deepest search, in plies.
+     * @param timeLimitMillis   the time budget for one move, or NO_TIME_LIMIT to always search to maxDepth.
+     * @param table             the cache of searched positions, which may be shared with other searches.
+     * @pre                     maxDepth >= 1 AND timeLimitMillis >= 0 AND table != null
+     * @post                    this.maxDepth = maxDepth AND
+     *                          this.timeLimitMillis = timeLimitMillis AND
+     *                          this.table = table
+     */
+    public NegamaxAI(int maxDepth, long timeLimitMillis, TranspositionTable table){
+
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = table;
+
+    }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        // The book's moves were searched as a two player game
+        if (book != null && numPlayers == 2){
+
+            int column = book.lookup(board);
+
+            if (column != OpeningBook.NO_MOVE && board.checkIfFree(column)) return column;
+
+        }
+
+        table.newSearch();
+
+        return search(board.copy(), tokens, numPlayers, turn);
+
+    }
+
+    /**
+     * Searches board the way selectColumn does, but without the opening book and without
+     * starting a new age in the table. ParallelSearch starts the age once for all of the
+     * searches that share its table, and gives each of them its own copy of the board.
+     *
+     * @param board     the position to search, changed during the search and left as it was.
+     * @return          the best column of the deepest search that finished
+     * @pre             at least one column is free
+     * @post            #board = board
+     */
+    int search(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        char side = tokens[turn];
+        char other = tokens[(turn + 1) % numPlayers];
+
+        this.board = board;
+        order = centerFirstOrder(board.getNumColumns());
+        deadline = System.nanoTime() + timeLimitMillis * NANOS_PER_MILLI;
+        timed = timeLimitMillis != NO_TIME_LIMIT;
+        aborted = false;
+        nodes = 0;
+        depthReached = 0;
+
+        // Until a search finishes, fall back to the most central free column
+        int bestColumn = IGameBoard.MIN_COLUMN;
+
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            if (board.checkIfFree(order[i])){
+
+                bestColumn = order[i];
+                break;
+
+            }
+
+        }
+
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth && !aborted; depth++){
+
+            int column = searchRoot(depth, side, other);
+
+            if (!aborted){
+
+                bestColumn = column;
+                depthReached = depth;
+                moveToFront(column);
+
+            }
+
+        }
+
+        this.board = null;
+
+        return bestColumn;
+
+    }
+
+    /**
+     * @param book      opening moves to play without searching while the position is in the
+     *                  book, or null to always search. The book is only used in two player games
+     * @post            this.book = book
+     */
+    public void setOpeningBook(OpeningBook book){ this.book = book; }
+
+    /**
+     * @return      the number of positions visited by the last call to selectColumn
+     */
+    public long getNodesSearched(){ return nodes; }
+
+    /**
+     * @return      the depth of the deepest search that finished in the last call to selectColumn
+     */
+    public int getDepthReached(){ return depthReached; }
+
+    /**
+     * Scores side playing column c on board, searched depth plies deep with the window
+     * (alpha, INFINITY). This lets ParallelSearch spread the root moves of one search
+     * over several players, each with its own copy of the board.
+     *
+     * @param board         the position to search from, left unchanged.
+     * @param c             the column to score.
+     * @param depth         the search depth in plies, counting the move in c.
+     * @param alpha         a score the caller already has, lower scores are only bounds.
+     * @param deadline      System.nanoTime() value to give up at.
+     * @param timed         false to ignore deadline.
+     * @return              the score of playing c for side, meaningless if wasAborted()
+     * @pre                 board.checkIfFree(c)
+     * @post                #board = board
+     */
+    int searchMove(IGameBoard board, int c, int depth, int alpha, char side, char other, long deadline, boolean timed){
+
+        this.board = board;
+        order = centerFirstOrder(board.getNumColumns());
+        this.deadline = deadline;
+        this.timed = timed;
+        aborted = false;
+        nodes = 0;
+
+        int score = scoreMove(c, depth, 1, alpha, INFINITY, side, other);
+
+        this.board = null;
+
+        return score;
+
+    }
+
+    /**
+     * @return      true if the last search ran out of time or was stopped before it finished
+     */
+    boolean wasAborted(){ return aborted; }
+
+    /**
+     * @param signal    a flag that ends the search early once it is set, shared by searches
+     *                  that should all stop together
+     */
+    void setStopSignal(AtomicBoolean signal){ stopSignal = signal; }
+
+    /**
+     * @param depth     the depth iterative deepening starts from, so that helper searches
+     *                  sharing a table with a main search spread out over different depths
+     */
+    void setFirstDepth(int depth){ firstDepth = depth; }
+
+    /**
+     * Searches every free column to depth plies and returns the best one.
+     *
+     * @pre     at least one column is free
+     * @post    #board = board
+     */
+    private int searchRoot(int depth, char side, char other){
+
+        int alpha = -INFINITY;
+        int bestColumn = order[IGameBoard.START];
+
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            int c = order[i];
+
+            if (!board.checkIfFree(c)) continue;
+
+            int score = scoreMove(c, depth, 1, alpha, INFINITY, side, other);
+
+            if (aborted) break;
+
+            if (score > alpha){
+
+                alpha = score;
+                bestColumn = c;
+
+            }
+
+        }
+
+        return bestColumn;
+
+    }
+
+    /**
+     * Returns the score of the position for the player to move, searched depth plies deep.
+     * The result is looked up in and stored to the transposition table.
+     *
+     * @post    #board = board
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, char side, char other){
+
+        long key = positionKey(board, side, other);
+        long entry = table.probe(key);
+        int tableMove = TranspositionTable.NO_MOVE;
+
+        if (entry != TranspositionTable.MISS){
+
+            tableMove = TranspositionTable.move(entry);
+
+            if (TranspositionTable.depth(entry) >= depth){
+
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int flag = TranspositionTable.flag(entry);
+
+                if (flag == TranspositionTable.EXACT) return score;
+                if (flag == TranspositionTable.LOWER_BOUND && score >= beta) return score;
+                if (flag == TranspositionTable.UPPER_BOUND && score <= alpha) return score;
+
+            }
+
+        }
+
+        int alphaStart = alpha;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+
+        // The table's move is tried first, then every other column in order
+        for (int i = -1; i < order.length; i++){
+
+            int c = (i < IGameBoard.START) ? tableMove : order[i];
+
+            if (c == TranspositionTable.NO_MOVE || (i >= IGameBoard.START && c == tableMove) || !board.checkIfFree(c)) continue;
+
+            int score = scoreMove(c, depth, ply + 1, alpha, beta, side, other);
+
+            if (aborted) return 0;
+
+            if (score > best){
+
+                best = score;
+                bestMove = c;
+
+            }
+
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+
+        }
+
+        int flag;
+
+        if (best <= alphaStart) flag = TranspositionTable.UPPER_BOUND;
+        else if (best >= beta) flag = TranspositionTable.LOWER_BOUND;
+        else flag = TranspositionTable.EXACT;
+
+        table.store(key, toTable(best, ply), depth, flag, bestMove);
+
+        return best;
+
+    }
+
+    /**
+     * Plays side in column c, scores the result for side and takes the move back.
+     *
+     * @pre     board.checkIfFree(c)
+     * @post    #board = board
+     */
+    private int scoreMove(int c, int depth, int ply, int alpha, int beta, char side, char other){
+
+        int score;
+
+        nodes++;
+
+        // An interrupt cancels the move, for example when the player takes back the move before it
+        if ((nodes & TIME_CHECK_MASK) == 0 && ((timed && System.nanoTime() > deadline) || (stopSignal != null && stopSignal.get())
+                || Thread.currentThread().isInterrupted())){
+
+            aborted = true;
+
+        }
+
+        board.placeToken(side, c);
+
+        // Quicker wins score higher than slower ones
+        if (board.checkForWin(c)) score = WIN_SCORE - ply;
+        else if (board.checkTie()) score = 0;
+        else if (depth <= 1) score = evaluate(board, side, other);
+        else score = -negamax(depth - 1, ply, -beta, -alpha, other, side);
+
+        board.removeToken(c);
+
+        return score;
+
+    }
+
+    /**
+     * Static evaluation of the board for side. Every numToWin long window that only holds
+     * side's tokens adds the square of its token count, and every window that only holds
+     * other's tokens subtracts it. Windows holding any other token are dead and score 0.
+     * The board keeps these sums up to date as tokens are placed and removed, so this is O(1).
+     *
+     * @param board     the board to evaluate.
+     * @param side      the token the score is for.
+     * @param other     the opposing token.
+     * @return          the score of board for side
+     * @post            #board = board
+     */
+    static int evaluate(IGameBoard board, char side, char other){ return board.getLineScore(side) - board.getLineScore(other); }
+
+    /**
+     * @return      the board hash combined with who is searching against whom, since the
+     *              same tokens on the board score differently for different players, and
+     *              with the board settings, since the hash alone is the same for the same
+     *              tokens on boards of any size and every empty board hashes to 0
+     */
+    static long positionKey(IGameBoard board, char side, char other){
+
+        return board.getZobristHash() ^ Zobrist.sideKey(side) ^ Long.rotateLeft(Zobrist.sideKey(other), 1)
+                ^ Zobrist.configKey(board.getNumRows(), board.getNumColumns(), board.getNumToWin());
+
+    }
+
+    /**
+     * Win and loss scores count plies from the root, so they are stored counting plies from
+     * the position instead, which is the same no matter how the position was reached.
+     */
+    static int toTable(int score, int ply){
+
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+
+        return score;
+
+    }
+
+    static int fromTable(int score, int ply){
+
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+
+        return score;
+
+    }
+
+    /**
+     * @return      the columns 0 to numColumns - 1 ordered from the center outwards
+     */
+    static int [] centerFirstOrder(int numColumns){
+
+        int [] result = new int[numColumns];
+        int center = (numColumns - 1) / 2;
+
+        for (int i = IGameBoard.START; i < numColumns; i++){
+
+            // center, center + 1, center - 1, center + 2, ...
+            int offset = (i + 1) / 2;
+            result[i] = (i % 2 == 1) ? center + offset : center - offset;
+
+        }
+
+        return result;
+
+    }
+
+    private void moveToFront(int column){
+
+        int i = IGameBoard.START;
+
+        while (order[i] != column) i++;
+
+        for (; i > IGameBoard.START; i--) order[i] = order[i - 1];
+
+        order[IGameBoard.START] = column;
+
+    }
+
+}
@@ -0,0 +1,209 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read only book of opening moves for one (rows, columns, numToWin) configuration, read
+ * straight out of a memory mapped file written by OpeningBookGenerator. Nothing is parsed or
+ * copied onto the heap when the book is opened: a lookup is a binary search over the mapped
+ * entries, so only the pages it touches are read from disk.
+ *
+ * A position and its left-right mirror image are stored as one entry under the smaller of
+ * their two Zobrist hashes, and the column is mirrored back on lookup.
+ *
+ * File layout, big endian: MAGIC, VERSION, rows, columns, numToWin, the most tokens a book
+ * position has and the entry count as ints, then the entries as longs sorted as unsigned
+ * numbers. An entry holds the upper bits of the canonical hash above MOVE_BITS bits of column.
+ *
+ * @invariant       entries are sorted AND
+ *                  [every entry's column is free in the position it was stored for]
+ */
+public class OpeningBook {
+
+    public static final int MAGIC = 0x43584F42;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 7 * Integer.BYTES;
+    public static final int NO_MOVE = -1;
+
+    // Where the game looks for books, set with -Dconnectx.bookDir
+    public static final Path DEFAULT_DIR = Paths.get(System.getProperty("connectx.bookDir", "books"));
+
+    static final int MOVE_BITS = 8;
+    static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+
+    private final MappedByteBuffer entries;
+    private final int numRows;
+    private final int numColumns;
+    private final int numToWin;
+    private final int maxTokens;
+    private final int count;
+
+    private OpeningBook(MappedByteBuffer map){
+
+        if (map.getInt(0) != MAGIC || map.getInt(Integer.BYTES) != VERSION) throw new IllegalArgumentException("Not an opening book");
+
+        numRows = map.getInt(2 * Integer.BYTES);
+        numColumns = map.getInt(3 * Integer.BYTES);
+        numToWin = map.getInt(4 * Integer.BYTES);
+        maxTokens = map.getInt(5 * Integer.BYTES);
+        count = map.getInt(6 * Integer.BYTES);
+        entries = map;
+
+    }
+
+    /**
+     * Maps the book for a configuration from dir.
+     *
+     * @param dir           the directory the generator wrote to.
+     * @param numRows       rows of the boards the book is for.
+     * @param numColumns    columns of the boards the book is for.
+     * @param numToWin      tokens in a row to win.
+     * @return              the book, or null if dir has no book for the configuration
+     * @throws IOException  if the file exists but can not be read
+     */
+    public static OpeningBook open(Path dir, int numRows, int numColumns, int numToWin) throws IOException {
+
+        Path file = dir.resolve(fileName(numRows, numColumns, numToWin));
+
+        if (!Files.exists(file)) return null;
+
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+
+        }
+
+    }
+
+    /**
+     * @return      the name of the book file for a configuration
+     */
+    public static String fileName(int numRows, int numColumns, int numToWin){
+
+        return "book-" + numRows + "x" + numColumns + "-" + numToWin + ".bin";
+
+    }
+
+    /**
+     * Looks up the book move for board.
+     *
+     * @param board     the position, left unchanged.
+     * @return          the book column, or NO_MOVE if the position is not in the book or the
+     *                  book is for another configuration
+     * @post            #board = board
+     */
+    public int lookup(IGameBoard board){
+
+        if (board.getNumRows() != numRows || board.getNumColumns() != numColumns || board.getNumToWin() != numToWin) return NO_MOVE;
+
+        int tokens = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < numColumns; c++) tokens += board.getColumnHeight(c);
+
+        // Past the opening there is nothing to find
+        if (tokens > maxTokens) return NO_MOVE;
+
+        long hash = board.getZobristHash();
+        long mirror = mirrorHash(board);
+        boolean mirrored = Long.compareUnsigned(mirror, hash) < 0;
+        long key = (mirrored ? mirror : hash) & ~MOVE_MASK;
+        int low = IGameBoard.START;
+        int high = count - 1;
+
+        while (low <= high){
+
+            int mid = (low + high) >>> 1;
+            long entry = entries.getLong(HEADER_BYTES + mid * Long.BYTES);
+            int cmp = Long.compareUnsigned(entry & ~MOVE_MASK, key);
+
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else {
+
+                int column = (int) (entry & MOVE_MASK);
+
+                return mirrored ? numColumns - 1 - column : column;
+
+            }
+
+        }
+
+        return NO_MOVE;
+
+    }
+
+    /**
+     * @return      the number of positions in the book
+     */
+    public int size(){ return count; }
+
+    /**
+     * @return      the Zobrist hash board would have if it were flipped left to right
+     * @post        #board = board
+     */
+    static long mirrorHash(IGameBoard board){
+
+        int cols = board.getNumColumns();
+        long hash = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < cols; c++){
+
+            for (int r = IGameBoard.MIN_ROW; r < board.getColumnHeight(c); r++) hash ^= Zobrist.key(board.whatsAtPos(r, c), r, cols - 1 - c);
+
+        }
+
+        return hash;
+
+    }
+
+    /**
+     * Packs a book entry for a position that moves in column.
+     *
+     * @return      the entry to write for the position
+     */
+    static long entry(IGameBoard board, int column){
+
+        long hash = board.getZobristHash();
+        long mirror = mirrorHash(board);
+
+        if (Long.compareUnsigned(mirror, hash) < 0) return (mirror & ~MOVE_MASK) | (board.getNumColumns() - 1 - column);
+
+        return (hash & ~MOVE_MASK) | column;
+
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param file      where to write.
+     * @param maxTokens the most tokens any of the positions has.
+     * @param sorted    the entries, sorted as unsigned numbers with no two for the same key.
+     * @throws IOException  if the file can not be written
+     */
+    static void write(Path file, int numRows, int numColumns, int numToWin, int maxTokens, long [] sorted) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + sorted.length * Long.BYTES);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(numRows).putInt(numColumns).putInt(numToWin).putInt(maxTokens).putInt(sorted.length);
+
+        for (long e : sorted) buffer.putLong(e);
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+        }
+
+    }
+
+}
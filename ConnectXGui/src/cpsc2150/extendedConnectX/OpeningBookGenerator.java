@@ -0,0 +1,230 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Builds OpeningBook files offline. Every two player position reachable in the first plies
+ * moves is searched by a NegamaxAI, and its best column is written to the book. A position
+ * and its mirror image are only searched once.
+ *
+ * Arguments: dir depth plies rows columns numToWin
+ *        or: dir depth all [plies]
+ *
+ * The first form builds one book for the given configuration. The second builds a book for
+ * every configuration SetupController accepts: up to IGameBoard.MAX_NUM_ROWS rows and
+ * IGameBoard.MAX_NUM_COLUMNS columns, and up to IGameBoard.MAX_NUM_TO_WIN in a row. That is
+ * hundreds of thousands of books, so it only runs when asked for with all. When plies is 0
+ * or left out, it is picked per configuration so that at most MAX_POSITIONS move sequences
+ * are walked. Any other arguments print the usage.
+ */
+public class OpeningBookGenerator {
+
+    public static final int MAX_POSITIONS = 20000;
+
+    // The argument that asks for a book for every configuration
+    private static final String ALL = "all";
+
+    private final IGameBoard board;
+    private final int plies;
+    private final NegamaxAI search;
+    private final char [] tokens = ConnectXController.PLAYER_TOKENS;
+
+    // Canonical keys already in the book, an open addressing set
+    private long [] seen = new long[1024];
+    private int numSeen;
+    private boolean seenZero;
+
+    private long [] entries = new long[1024];
+    private int numEntries;
+
+    private OpeningBookGenerator(int numRows, int numColumns, int numToWin, int plies, int depth){
+
+        board = new GameBoard(numRows, numColumns, numToWin);
+        this.plies = plies;
+        search = new NegamaxAI(depth, NegamaxAI.NO_TIME_LIMIT);
+
+    }
+
+    /**
+     * Builds the book for one configuration and writes it to dir.
+     *
+     * @return      the number of positions in the book
+     * @throws IOException  if the book can not be written
+     */
+    public static int generate(Path dir, int numRows, int numColumns, int numToWin, int plies, int depth) throws IOException {
+
+        OpeningBookGenerator generator = new OpeningBookGenerator(numRows, numColumns, numToWin, plies, depth);
+
+        generator.walk(IGameBoard.START);
+
+        long [] sorted = Arrays.copyOf(generator.entries, generator.numEntries);
+
+        // Sort as unsigned numbers by flipping the sign bit around a signed sort
+        for (int i = IGameBoard.START; i < sorted.length; i++) sorted[i] ^= Long.MIN_VALUE;
+
+        Arrays.sort(sorted);
+
+        for (int i = IGameBoard.START; i < sorted.length; i++) sorted[i] ^= Long.MIN_VALUE;
+
+        Files.createDirectories(dir);
+        OpeningBook.write(dir.resolve(OpeningBook.fileName(numRows, numColumns, numToWin)), numRows, numColumns, numToWin, plies, sorted);
+
+        return sorted.length;
+
+    }
+
+    /**
+     * @return      the most plies for which a board with numColumns columns has at most
+     *              MAX_POSITIONS move sequences
+     */
+    public static int defaultPlies(int numColumns){
+
+        int plies = 0;
+        long sequences = 1;
+
+        while (sequences * numColumns <= MAX_POSITIONS){
+
+            sequences *= numColumns;
+            plies++;
+
+        }
+
+        return plies;
+
+    }
+
+    /**
+     * Adds the position on board and every position reachable from it to the book.
+     *
+     * @post    #board = board
+     */
+    private void walk(int ply){
+
+        long key = OpeningBook.entry(board, 0) & ~OpeningBook.MOVE_MASK;
+
+        if (!addSeen(key)) return;
+
+        int turn = ply % 2;
+        int column = search.selectColumn(board, tokens, 2, turn);
+
+        addEntry(OpeningBook.entry(board, column));
+
+        if (ply == plies) return;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (!board.checkIfFree(c)) continue;
+
+            board.placeToken(tokens[turn], c);
+
+            // Finished games have no next move to store
+            if (!board.checkForWin(c) && !board.checkTie()) walk(ply + 1);
+
+            board.removeToken(c);
+
+        }
+
+    }
+
+    /**
+     * @return      true if key was not in the set yet
+     */
+    private boolean addSeen(long key){
+
+        if (key == 0){
+
+            boolean added = !seenZero;
+            seenZero = true;
+            return added;
+
+        }
+
+        if ((numSeen + 1) * 2 > seen.length){
+
+            long [] old = seen;
+
+            seen = new long[old.length * 2];
+            numSeen = 0;
+
+            for (long k : old) if (k != 0) addSeen(k);
+
+        }
+
+        int mask = seen.length - 1;
+        int i = (int) (key ^ (key >>> 32)) & mask;
+
+        while (seen[i] != 0){
+
+            if (seen[i] == key) return false;
+
+            i = (i + 1) & mask;
+
+        }
+
+        seen[i] = key;
+        numSeen++;
+
+        return true;
+
+    }
+
+    private void addEntry(long entry){
+
+        if (numEntries == entries.length) entries = Arrays.copyOf(entries, entries.length * 2);
+
+        entries[numEntries++] = entry;
+
+    }
+
+    public static void main(String [] args) throws IOException {
+
+        boolean all = (args.length == 3 || args.length == 4) && args[2].equals(ALL);
+
+        if (args.length != 6 && !all){
+
+            System.out.println("Usage: OpeningBookGenerator dir depth plies rows columns numToWin");
+            System.out.println("   or: OpeningBookGenerator dir depth " + ALL + " [plies]");
+            System.exit(1);
+
+        }
+
+        Path dir = Paths.get(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int plies = all ? (args.length == 4 ? Integer.parseInt(args[3]) : 0) : Integer.parseInt(args[2]);
+
+        if (!all){
+
+            int rows = Integer.parseInt(args[3]);
+            int cols = Integer.parseInt(args[4]);
+            int numToWin = Integer.parseInt(args[5]);
+            int size = generate(dir, rows, cols, numToWin, plies > 0 ? plies : defaultPlies(cols), depth);
+
+            System.out.println(OpeningBook.fileName(rows, cols, numToWin) + ": " + size + " positions");
+            return;
+
+        }
+
+        // The same limits SetupController checks the setup screen against
+        for (int rows = IGameBoard.MIN_NUM_ROWS; rows <= IGameBoard.MAX_NUM_ROWS; rows++){
+
+            for (int cols = IGameBoard.MIN_NUM_COLUMNS; cols <= IGameBoard.MAX_NUM_COLUMNS; cols++){
+
+                for (int numToWin = IGameBoard.MIN_NUM_TO_WIN; numToWin <= Math.min(Math.min(rows, cols), IGameBoard.MAX_NUM_TO_WIN); numToWin++){
+
+                    int size = generate(dir, rows, cols, numToWin, plies > 0 ? plies : defaultPlies(cols), depth);
+
+                    System.out.println(OpeningBook.fileName(rows, cols, numToWin) + ": " + size + " positions");
+
+                }
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,354 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A computer player that spreads a NegamaxAI search over several threads of a ForkJoinPool.
+ * Every thread works on its own copy of the board and all threads share one
+ * TranspositionTable. Two ways of splitting the work are available:
+ *
+ * ROOT_SPLIT deepens one ply at a time. At each depth the most promising column is searched
+ * first, then every other free column is searched as its own fork-join task against the
+ * score of the first one.
+ *
+ * LAZY_SMP starts one full iterative deepening search per thread. The threads only share
+ * the table, and half of the helper threads start one ply deeper so they fill the table
+ * ahead of the main search. The main search's move is played.
+ *
+ * The pool's threads never see an interrupt of the thread that called selectColumn, so
+ * every search of a move shares one stop flag. When the caller is interrupted while it
+ * waits, for example because the move was cancelled, the flag is set, every search gives up
+ * at its next check, and the best column found so far is returned with the interrupt kept.
+ *
+ * @invariant       maxDepth >= 1 AND
+ *                  timeLimitMillis >= 0 AND
+ *                  threads >= 1
+ */
+public class ParallelSearch implements IComputerPlayer {
+
+    public enum Mode { ROOT_SPLIT, LAZY_SMP }
+
+    private static final long NANOS_PER_MILLI = 1000000;
+    private static final long NANOS_PER_SECOND = 1000000000;
+
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final int threads;
+    private final Mode mode;
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+
+    // Set to stop every search of the current move
+    private final AtomicBoolean stop = new AtomicBoolean();
+
+    private long nodes;
+    private long elapsedNanos;
+    private int depthReached;
+
+    /**
+     * @param maxDepth          the deepest search, in plies.
+     * @param timeLimitMillis   the time budget for one move, or NegamaxAI.NO_TIME_LIMIT.
+     * @param threads           the number of threads to search with.
+     * @param mode              how to split the search over the threads.
+     * @pre                     maxDepth >= 1 AND timeLimitMillis >= 0 AND threads >= 1
+     * @post                    [a pool of threads workers and a shared table of
+     *                          NegamaxAI.DEFAULT_TABLE_BYTES * threads bytes are created]
+     */
+    public ParallelSearch(int maxDepth, long timeLimitMillis, int threads, Mode mode){
+
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.threads = threads;
+        this.mode = mode;
+        pool = new ForkJoinPool(threads);
+        table = new TranspositionTable(NegamaxAI.DEFAULT_TABLE_BYTES * threads);
+
+    }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        long start = System.nanoTime();
+        int column;
+
+        nodes = 0;
+        depthReached = 0;
+        stop.set(false);
+        table.newSearch();
+
+        if (mode == Mode.ROOT_SPLIT) column = rootSplit(board, tokens[turn], tokens[(turn + 1) % numPlayers], start);
+        else column = lazySmp(board, tokens, numPlayers, turn);
+
+        elapsedNanos = System.nanoTime() - start;
+
+        return column;
+
+    }
+
+    /**
+     * @return      the positions visited by all threads during the last selectColumn
+     */
+    public long getNodesSearched(){ return nodes; }
+
+    /**
+     * @return      how long the last selectColumn took, in nanoseconds
+     */
+    public long getElapsedNanos(){ return elapsedNanos; }
+
+    /**
+     * @return      the positions visited per second during the last selectColumn
+     */
+    public long getNodesPerSecond(){ return elapsedNanos == 0 ? 0 : nodes * NANOS_PER_SECOND / elapsedNanos; }
+
+    /**
+     * @return      the deepest search that finished during the last selectColumn
+     */
+    public int getDepthReached(){ return depthReached; }
+
+    /**
+     * Stops the worker threads. The search can not be used afterwards.
+     *
+     * @post    [the pool is shut down]
+     */
+    public void shutdown(){ pool.shutdown(); }
+
+    private int rootSplit(IGameBoard game, char side, char other, long start){
+
+        // The first column is searched on a copy so the game's move history keeps its redo list
+        IGameBoard board = game.copy();
+        long deadline = start + timeLimitMillis * NANOS_PER_MILLI;
+        boolean timed = timeLimitMillis != NegamaxAI.NO_TIME_LIMIT;
+        int [] order = NegamaxAI.centerFirstOrder(board.getNumColumns());
+        int numFree = IGameBoard.START;
+
+        // Only free columns are searched, in center first order
+        for (int i = IGameBoard.START; i < order.length; i++){
+
+            if (board.checkIfFree(order[i])) order[numFree++] = order[i];
+
+        }
+
+        int bestColumn = order[IGameBoard.START];
+
+        for (int depth = 1; depth <= maxDepth; depth++){
+
+            // The best column so far is searched alone to get a score to test the others against
+            NegamaxAI first = new NegamaxAI(depth, timeLimitMillis, table);
+
+            first.setStopSignal(stop);
+            int alpha = first.searchMove(board, order[IGameBoard.START], depth, -NegamaxAI.INFINITY, side, other, deadline, timed);
+
+            nodes += first.getNodesSearched();
+
+            if (first.wasAborted()) break;
+
+            List<ColumnTask> tasks = new ArrayList<>();
+
+            for (int i = IGameBoard.START + 1; i < numFree; i++){
+
+                tasks.add(new ColumnTask(board.copy(), order[i], depth, alpha, side, other, deadline, timed));
+
+            }
+
+            await(pool.submit(new RecursiveAction(){
+
+                protected void compute(){ ForkJoinTask.invokeAll(tasks); }
+
+            }));
+
+            boolean aborted = false;
+            int depthBest = order[IGameBoard.START];
+
+            for (ColumnTask task : tasks){
+
+                nodes += task.nodes;
+                aborted |= task.aborted;
+
+                if (task.score > alpha){
+
+                    alpha = task.score;
+                    depthBest = task.column;
+
+                }
+
+            }
+
+            if (aborted) break;
+
+            bestColumn = depthBest;
+            depthReached = depth;
+
+            // Search the new best column first at the next depth
+            int i = IGameBoard.START;
+
+            while (order[i] != bestColumn) i++;
+
+            for (; i > IGameBoard.START; i--) order[i] = order[i - 1];
+
+            order[IGameBoard.START] = bestColumn;
+
+        }
+
+        return bestColumn;
+
+    }
+
+    private int lazySmp(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        NegamaxAI [] searches = new NegamaxAI[threads];
+        List<ForkJoinTask<Integer>> helpers = new ArrayList<>();
+
+        for (int i = IGameBoard.START; i < threads; i++){
+
+            searches[i] = new NegamaxAI(maxDepth, timeLimitMillis, table);
+            searches[i].setStopSignal(stop);
+            searches[i].setFirstDepth(1 + i % 2);
+
+        }
+
+        for (int i = IGameBoard.START + 1; i < threads; i++){
+
+            NegamaxAI helper = searches[i];
+            IGameBoard helperBoard = board.copy();
+
+            helpers.add(pool.submit(() -> helper.search(helperBoard, tokens, numPlayers, turn)));
+
+        }
+
+        int column = await(pool.submit(() -> searches[IGameBoard.START].search(board.copy(), tokens, numPlayers, turn)));
+
+        // Once the main search is done the helpers are no longer needed
+        stop.set(true);
+
+        for (ForkJoinTask<Integer> helper : helpers) helper.join();
+
+        for (NegamaxAI search : searches) nodes += search.getNodesSearched();
+
+        depthReached = searches[IGameBoard.START].getDepthReached();
+
+        return column;
+
+    }
+
+    /**
+     * Waits for task to finish. If the calling thread is interrupted while it waits, stop is
+     * set so the task and every other search of this move give up, and the interrupt is kept
+     * for the caller to see.
+     *
+     * @return      the result of task
+     */
+    private <T> T await(ForkJoinTask<T> task){
+
+        try {
+
+            return task.get();
+
+        } catch (InterruptedException e) {
+
+            stop.set(true);
+            Thread.currentThread().interrupt();
+
+            return task.join();
+
+        } catch (ExecutionException e) {
+
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+
+        }
+
+    }
+
+    /**
+     * Searches one root column on its own board copy.
+     */
+    private class ColumnTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IGameBoard board;
+        private final int column;
+        private final int depth;
+        private final int alpha;
+        private final char side;
+        private final char other;
+        private final long deadline;
+        private final boolean timed;
+
+        private int score;
+        private long nodes;
+        private boolean aborted;
+
+        ColumnTask(IGameBoard board, int column, int depth, int alpha, char side, char other, long deadline, boolean timed){
+
+            this.board = board;
+            this.column = column;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.side = side;
+            this.other = other;
+            this.deadline = deadline;
+            this.timed = timed;
+
+        }
+
+        protected void compute(){
+
+            NegamaxAI search = new NegamaxAI(depth, timeLimitMillis, table);
+
+            search.setStopSignal(stop);
+            score = search.searchMove(board, column, depth, alpha, side, other, deadline, timed);
+            nodes = search.getNodesSearched();
+            aborted = search.wasAborted();
+
+        }
+
+    }
+
+    /**
+     * Measures both modes against a single thread search of the same depth on an empty board
+     * and prints nodes per second and speedup for every thread count up to the number of cores.
+     *
+     * Arguments: rows columns numToWin depth
+     */
+    public static void main(String [] args){
+
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int numToWin = Integer.parseInt(args[2]);
+        int depth = Integer.parseInt(args[3]);
+        char [] tokens = ConnectXController.PLAYER_TOKENS;
+        IGameBoard board = new GameBoardBit(rows, cols, numToWin);
+
+        NegamaxAI single = new NegamaxAI(depth, NegamaxAI.NO_TIME_LIMIT);
+        long start = System.nanoTime();
+        single.selectColumn(board, tokens, 2, 0);
+        long singleNanos = System.nanoTime() - start;
+
+        System.out.println("1 thread: " + single.getNodesSearched() * NANOS_PER_SECOND / singleNanos + " nodes/sec, "
+                + singleNanos / NANOS_PER_MILLI + " ms");
+
+        for (Mode mode : Mode.values()){
+
+            for (int t = 2; t <= Runtime.getRuntime().availableProcessors(); t *= 2){
+
+                ParallelSearch search = new ParallelSearch(depth, NegamaxAI.NO_TIME_LIMIT, t, mode);
+
+                search.selectColumn(board, tokens, 2, 0);
+                search.shutdown();
+
+                System.out.println(mode + " " + t + " threads: " + search.getNodesPerSecond() + " nodes/sec, "
+                        + search.getElapsedNanos() / NANOS_PER_MILLI + " ms, speedup "
+                        + String.format("%.2f", (double) singleNanos / search.getElapsedNanos()));
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,42 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.SplittableRandom;
+
+/**
+ * A computer player that drops its token in a random free column. It is the weakest
+ * opponent possible and the baseline the other players are measured against.
+ */
+public class RandomPlayer implements IComputerPlayer {
+
+    private final SplittableRandom random;
+
+    /**
+     * @param seed      the seed of the random columns, so that a run can be repeated.
+     * @post            [a player that picks columns from a generator seeded with seed is created]
+     */
+    public RandomPlayer(long seed){ random = new SplittableRandom(seed); }
+
+    public int selectColumn(IGameBoard board, char [] tokens, int numPlayers, int turn){
+
+        int numFree = 0;
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (board.checkIfFree(c)) numFree++;
+
+        }
+
+        // Walk to the pick'th free column so nothing is allocated
+        int pick = random.nextInt(numFree);
+
+        for (int c = IGameBoard.MIN_COLUMN; c < board.getNumColumns(); c++){
+
+            if (board.checkIfFree(c) && pick-- == 0) return c;
+
+        }
+
+        return IGameBoard.MIN_COLUMN;
+
+    }
+
+}
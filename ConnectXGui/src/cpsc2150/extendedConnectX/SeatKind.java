@@ -0,0 +1,81 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+
+/**
+ * Who plays a seat: a person at the screen, or a computer player of one of three strengths.
+ * The setup screen offers these for every seat, and GameSnapshot saves them with the game so
+ * a resumed game is played by the same kinds of players.
+ *
+ * HUMAN - the seat is played by clicking on the board
+ * EASY - GreedyPlayer, which looks one move ahead
+ * MEDIUM - NegamaxAI searching MEDIUM_DEPTH plies in a two player game, MultiPlayerSearch in
+ *          paranoid mode otherwise
+ * HARD - NegamaxAI at its default depth with EndgameSolver to play the end perfectly in a
+ *        two player game, MonteCarloAI otherwise
+ *
+ * In a two player game the NegamaxAI of MEDIUM and HARD plays from the opening book for the
+ * board settings in OpeningBook.DEFAULT_DIR, if OpeningBookGenerator has built one.
+ */
+public enum SeatKind {
+
+    HUMAN("Human"), EASY("Easy AI"), MEDIUM("Medium AI"), HARD("Hard AI");
+
+    public static final int MEDIUM_DEPTH = 4;
+
+    private final String label;
+
+    SeatKind(String label){ this.label = label; }
+
+    /**
+     * @return      a new computer player for a seat of this kind, or null for HUMAN
+     * @pre         [the board settings are valid] AND 2 <= numPlayers <= ConnectXController.MAX_PLAYERS
+     * @post        [each computer seat gets its own player, so seats never share search state]
+     */
+    public IComputerPlayer create(int numRows, int numColumns, int numToWin, int numPlayers){
+
+        switch (this){
+
+            case EASY: return new GreedyPlayer(System.nanoTime());
+            case MEDIUM:
+                if (numPlayers != 2) return new MultiPlayerSearch(MEDIUM_DEPTH, NegamaxAI.DEFAULT_TIME_LIMIT, MultiPlayerSearch.Mode.PARANOID);
+
+                return withBook(new NegamaxAI(MEDIUM_DEPTH, NegamaxAI.DEFAULT_TIME_LIMIT), numRows, numColumns, numToWin);
+            case HARD:
+                if (numPlayers != 2) return new MonteCarloAI();
+
+                return new EndgameSolver(EndgameSolver.DEFAULT_CACHE_BYTES, EndgameSolver.DEFAULT_NODE_BUDGET,
+                        withBook(new NegamaxAI(), numRows, numColumns, numToWin));
+            default: return null;
+
+        }
+
+    }
+
+    /**
+     * @return      search, playing from the book for the board settings if there is one
+     * @post        [a book that can not be read is reported and search plays without one]
+     */
+    private static NegamaxAI withBook(NegamaxAI search, int numRows, int numColumns, int numToWin){
+
+        try {
+
+            search.setOpeningBook(OpeningBook.open(OpeningBook.DEFAULT_DIR, numRows, numColumns, numToWin));
+
+        } catch (IOException | IllegalArgumentException e) {
+
+            System.err.println("Could not read the opening book: " + e.getMessage());
+
+        }
+
+        return search;
+
+    }
+
+    /**
+     * @return      the name shown on the setup screen
+     */
+    @Override
+    public String toString(){ return label; }
+
+}
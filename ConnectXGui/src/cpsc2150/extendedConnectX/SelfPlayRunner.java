@@ -0,0 +1,305 @@
+package cpsc2150.extendedConnectX;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongFunction;
+
+/**
+ * Plays batches of computer only games on a thread pool, without any user interface, and
+ * streams running statistics while it goes: win rate of every seat, tie rate, average game
+ * length and games per second.
+ *
+ * Every seat has a strategy, which makes a new computer player from a seed. Each thread makes
+ * its own players once and keeps them for all the games it plays, since computer players
+ * are not safe to share between threads.
+ *
+ * Arguments: rows columns numToWin games threads array|mem|bit|adaptive strategy... with one strategy per
+ * seat, each one of random, greedy, negamax, maxn, paranoid or mcts. An argument record=file also
+ * saves every game to file with a GameRecordWriter.
+ *
+ * @invariant       strategies.size() = numPlayers AND
+ *                  threads >= 1
+ */
+public class SelfPlayRunner {
+
+    public static final long DEFAULT_REPORT_MILLIS = 1000;
+
+    private static final long NANOS_PER_SECOND = 1000000000;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int numToWin;
+    private final int numPlayers;
+    private final BoardType boardType;
+    private final List<LongFunction<IComputerPlayer>> strategies;
+    private final int threads;
+
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private final AtomicLong totalMoves = new AtomicLong();
+    private final AtomicLong ties = new AtomicLong();
+    private final AtomicLongArray wins;
+    private long startNanos;
+
+    // Saves every finished game when it is set
+    private GameRecordWriter recordWriter;
+
+    /**
+     * Collects the columns of one game, so that it can be written as a game record.
+     */
+    private static final class MoveLog implements GameListener {
+
+        private final int [] moves;
+        private int numMoves;
+
+        MoveLog(int maxMoves){ moves = new int[maxMoves]; }
+
+        @Override
+        public void tokenPlaced(char token, int row, int column){ moves[numMoves++] = column; }
+
+    }
+
+    /**
+     * @param strategies    one player factory per seat, in turn order. Each is given a seed.
+     * @param threads       the number of games to play at the same time.
+     * @pre                 [the board settings are ones SetupController accepts] AND
+     *                      2 <= strategies.size() <= MAX_PLAYERS AND threads >= 1
+     * @post                [a runner with no games played is created]
+     */
+    public SelfPlayRunner(int numRows, int numColumns, int numToWin, BoardType boardType,
+                          List<LongFunction<IComputerPlayer>> strategies, int threads){
+
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.numToWin = numToWin;
+        this.boardType = boardType;
+        this.strategies = strategies;
+        this.threads = threads;
+        numPlayers = strategies.size();
+        wins = new AtomicLongArray(numPlayers);
+
+    }
+
+    /**
+     * Plays games games and prints the statistics to out every reportMillis, and once more at
+     * the end.
+     *
+     * @param seed          the base seed of the players, so that a run can be repeated.
+     * @throws InterruptedException     if the waiting thread is interrupted
+     * @post                getGamesPlayed() = #getGamesPlayed() + games
+     */
+    public void run(int games, long seed, PrintStream out, long reportMillis) throws InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+
+        startNanos = System.nanoTime();
+        reporter.scheduleAtFixedRate(() -> out.println(report()), reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+
+        for (int t = IGameBoard.START; t < threads; t++){
+
+            IComputerPlayer [] players = new IComputerPlayer[numPlayers];
+
+            for (int seat = IGameBoard.START; seat < numPlayers; seat++) players[seat] = strategies.get(seat).apply(seed + (long) t * numPlayers + seat);
+
+            MoveLog log = new MoveLog(numRows * numColumns);
+
+            workers.add(pool.submit(() -> {
+
+                while (next.getAndIncrement() < games) playGame(players, log);
+
+            }));
+
+        }
+
+        pool.shutdown();
+
+        try {
+
+            for (Future<?> f : workers) f.get();
+
+        } catch (ExecutionException e) {
+
+            throw new IllegalStateException("A game failed", e.getCause());
+
+        } finally {
+
+            pool.shutdownNow();
+            reporter.shutdownNow();
+
+        }
+
+        out.println(report());
+
+    }
+
+    /**
+     * @param writer    where to save every game from now on, or null to stop saving them.
+     * @post            [each game that finishes is written to writer]
+     */
+    public void setRecordWriter(GameRecordWriter writer){ recordWriter = writer; }
+
+    /**
+     * @return      the number of games finished so far
+     */
+    public long getGamesPlayed(){ return gamesPlayed.get(); }
+
+    /**
+     * @param seat  the index of a seat in turn order
+     * @return      the number of games seat has won
+     */
+    public long getWins(int seat){ return wins.get(seat); }
+
+    /**
+     * @return      the number of tied games
+     */
+    public long getTies(){ return ties.get(); }
+
+    /**
+     * @return      the average number of tokens placed per game
+     */
+    public double getAverageLength(){
+
+        long games = gamesPlayed.get();
+
+        return games == 0 ? 0 : (double) totalMoves.get() / games;
+
+    }
+
+    /**
+     * @return      one line with the statistics so far
+     */
+    public String report(){
+
+        long games = gamesPlayed.get();
+        long elapsed = Math.max(System.nanoTime() - startNanos, 1);
+        StringBuilder line = new StringBuilder();
+
+        line.append("games ").append(games)
+            .append(String.format(" | %.1f games/sec", (double) games * NANOS_PER_SECOND / elapsed))
+            .append(String.format(" | avg length %.1f |", getAverageLength()));
+
+        for (int seat = IGameBoard.START; seat < numPlayers; seat++){
+
+            line.append(' ').append(ConnectXController.PLAYER_TOKENS[seat]).append(' ').append(percent(wins.get(seat), games));
+
+        }
+
+        line.append(" ties ").append(percent(ties.get(), games));
+
+        return line.toString();
+
+    }
+
+    /**
+     * @param name      random, greedy, negamax, maxn, paranoid or mcts.
+     * @return          a factory for that kind of computer player with settings fast enough
+     *                  for batch play
+     * @throws IllegalArgumentException     if name is not a known strategy
+     */
+    public static LongFunction<IComputerPlayer> strategy(String name){
+
+        switch (name){
+
+            case "random": return RandomPlayer::new;
+            case "greedy": return GreedyPlayer::new;
+            case "negamax": return seed -> new NegamaxAI(4, NegamaxAI.NO_TIME_LIMIT);
+            case "maxn": return seed -> new MultiPlayerSearch(3, NegamaxAI.NO_TIME_LIMIT, MultiPlayerSearch.Mode.MAX_N);
+            case "paranoid": return seed -> new MultiPlayerSearch(3, NegamaxAI.NO_TIME_LIMIT, MultiPlayerSearch.Mode.PARANOID);
+            case "mcts": return seed -> new MonteCarloAI(1000, NegamaxAI.NO_TIME_LIMIT, 1);
+            default: throw new IllegalArgumentException("Unknown strategy " + name);
+
+        }
+
+    }
+
+    private void playGame(IComputerPlayer [] players, MoveLog log){
+
+        GameSession session = new GameSession(boardType.create(numRows, numColumns, numToWin), ConnectXController.PLAYER_TOKENS, numPlayers);
+
+        if (recordWriter != null){
+
+            log.numMoves = 0;
+            session.addListener(log);
+
+        }
+
+        // Seat 0 is set last, which starts the game and plays it to the end
+        for (int seat = numPlayers - 1; seat >= IGameBoard.START; seat--) session.setComputerPlayer(seat, players[seat]);
+
+        if (session.getWinner() == GameSession.NO_WINNER) ties.incrementAndGet();
+        else wins.incrementAndGet(session.getWinner());
+
+        if (recordWriter != null){
+
+            int outcome = session.getWinner() == GameSession.NO_WINNER ? GameRecord.TIE : session.getWinner();
+
+            try {
+
+                recordWriter.write(numRows, numColumns, numToWin, numPlayers, outcome, log.moves, log.numMoves);
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+
+        }
+
+        totalMoves.addAndGet(session.getNumMoves());
+        gamesPlayed.incrementAndGet();
+
+    }
+
+    private static String percent(long count, long games){ return games == 0 ? "-" : String.format("%.1f%%", 100.0 * count / games); }
+
+    public static void main(String [] args) throws InterruptedException, IOException {
+
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int numToWin = Integer.parseInt(args[2]);
+        int games = Integer.parseInt(args[3]);
+        int threads = Integer.parseInt(args[4]);
+        BoardType type = BoardType.valueOf(args[5].toUpperCase());
+        List<LongFunction<IComputerPlayer>> strategies = new ArrayList<>();
+
+        String record = null;
+
+        for (int i = 6; i < args.length; i++){
+
+            if (args[i].startsWith("record=")) record = args[i].substring("record=".length());
+            else strategies.add(strategy(args[i]));
+
+        }
+
+        SelfPlayRunner runner = new SelfPlayRunner(rows, cols, numToWin, type, strategies, threads);
+
+        if (record == null) runner.run(games, System.nanoTime(), System.out, DEFAULT_REPORT_MILLIS);
+        else {
+
+            try (GameRecordWriter writer = GameRecordWriter.create(Paths.get(record))){
+
+                runner.setRecordWriter(writer);
+                runner.run(games, System.nanoTime(), System.out, DEFAULT_REPORT_MILLIS);
+
+            }
+
+        }
+
+    }
+
+}
@@ -7,25 +7,44 @@ package cpsc2150.extendedConnectX;
  * errors it can use the displayError method in the SetupView class to inform the player of the
  * error, then wait for them to fix it and resubmit.
  * <p>
- * If there are no errors it will create a new IGameBoard object (the implementation will depend on
- * the size of the game board) to serve as the model, and the ConnectXController and ConnectXView.
+ * If there are no errors it will ask BoardFactory for a new IGameBoard object (the implementation
+ * is picked from the estimated memory and cost of each board for that size and number of players)
+ * to serve as the model, and create the ConnectXController and ConnectXView. Every seat is then given the kind of
+ * player, human or computer, that was chosen for it.
  * Control is then passed over the the event dispatch thread that will wait for an event to occur
  * <p>
- * No changes need to be made to this class.
+ * When the setup screen is shown again after a game, the finished game is kept. If the next game has the same size,
+ * number to win and number of players, that game's board and screen are reset in place instead of being built again.
  */
 public class SetupController {
 
     private SetupView view;
-    private int max_size = 20;
+    //the board view scrolls and zooms, so the only limit is the model's.
+    //OpeningBookGenerator builds books up to the same IGameBoard limits
+    private int max_size = IGameBoard.MAX_NUM_ROWS;
     private int min_size = 3;
     private int min_to_win = 3;
-    private final int BOARD_CUTOFF = 100;
+    //the game that just finished, or null
+    private ConnectXController finished;
 
     public SetupController(SetupView v) {
         view = v;
     }
 
-    public void processButtonClick(int rows, int cols, int players, int numWin) {
+    /**
+     * @param game the game that just finished, which is reused if the next one is the same size
+     * @post the setup screen is shown again
+     */
+    public void showAgain(ConnectXController game) {
+        finished = game;
+        view.display();
+    }
+
+    /**
+     * @param seats the kind of player of every seat, in turn order
+     * @pre seats.length = players
+     */
+    public void processButtonClick(int rows, int cols, int players, int numWin, SeatKind [] seats) {
         String errorMsg = "";
         if (rows < min_size || rows > max_size) {
             errorMsg += "Rows must be between " + min_size + " and " + max_size;
@@ -42,6 +61,10 @@ public class SetupController {
             errorMsg += "Can't have more to win than the number of Columns";
         }
 
+        if (numWin > IGameBoard.MAX_NUM_TO_WIN) {
+            errorMsg += "Number to win can't be more than " + IGameBoard.MAX_NUM_TO_WIN;
+        }
+
         if (numWin < min_to_win) {
             errorMsg += "Number to win must be at least " + min_to_win;
         }
@@ -49,18 +72,25 @@ public class SetupController {
         if (!errorMsg.equals("")) {
             view.displayError(errorMsg);
         } else {
-            view.closeScreen();
-            IGameBoard model;
-            //if the board is too big we'll want the memory efficient version
-            if (rows * cols > BOARD_CUTOFF) {
-                model = new GameBoardMem(rows, cols, numWin);
-            } else {
-                model = new GameBoard(rows, cols, numWin);
+            //a game of the same size is played on the board and screen of the last one
+            if (finished != null && finished.canRestart(rows, cols, numWin, players)) {
+                finished.restart(seats);
+                finished = null;
+                return;
+            }
+            if (finished != null) {
+                finished.close();
+                finished = null;
             }
+
+            //the factory estimates the memory and speed of each board and picks one
+            IGameBoard model = BoardFactory.create(rows, cols, numWin, players);
             ConnectXView tview = new ConnectXView(rows, cols);
             ConnectXController tcontroller = new ConnectXController(model, tview, players);
 
             tview.registerObserver(tcontroller);
+            tcontroller.setSetupController(this);
+            tcontroller.setSeats(seats);
         }
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package cpsc2150.extendedConnectX;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 
 import javax.swing.*;
 
@@ -10,12 +11,15 @@ import javax.swing.*;
  * This class contains the code to create and layout the GUI for the setup screen.
  * It also is the observer of the submit button. When someone clicks on submit
  * the action performed method is called, which then calls the controller Object.
+ * The screen is a panel that ConnectXWindow shows, so it can be shown again between games.
+ * Any seat can be played by a computer player: pick the seat's token and then the kind of
+ * player for it. The choices are kept for the next game.
  * <p>
  * You do not need to make any changes to this file, but it is a good example of
  * a java swing GUI.
  */
 
-public class SetupView extends JFrame implements ActionListener {
+public class SetupView extends JPanel implements ActionListener {
 
     private JButton submitButton;
     private JTextArea numRowsTxt;
@@ -28,6 +32,11 @@ public class SetupView extends JFrame implements ActionListener {
     private JLabel numPlayersLbl;
     private JLabel numWinLbl;
     private JTextArea numWinTxt;
+    private JLabel seatLbl;
+    private JComboBox<Character> seatCB;
+    private JComboBox<SeatKind> seatKindCB;
+    //the kind of player chosen for every seat, including seats past the number of players
+    private final SeatKind[] seatKinds = new SeatKind[ConnectXController.MAX_PLAYERS];
     private float fontSize = 40;
     private SetupController controller;
 
@@ -42,6 +51,11 @@ public class SetupView extends JFrame implements ActionListener {
         numPlayersCB = new JComboBox<>(players);
         numWinLbl = new JLabel("Number to win: ");
         numWinTxt = new JTextArea(1, 10);
+        seatLbl = new JLabel("Player: ");
+        seatCB = new JComboBox<>();
+        seatKindCB = new JComboBox<>(SeatKind.values());
+        Arrays.fill(seatKinds, SeatKind.HUMAN);
+        updateSeats();
 
         numRowsLbl.setFont(numRowsLbl.getFont().deriveFont(fontSize));
         numRowsTxt.setFont(numRowsLbl.getFont());
@@ -58,7 +72,11 @@ public class SetupView extends JFrame implements ActionListener {
         numWinLbl.setFont(numRowsLbl.getFont());
         numWinTxt.setFont(numRowsLbl.getFont());
 
-        this.setLayout(new GridLayout(6, 1));
+        seatLbl.setFont(numRowsLbl.getFont());
+        seatCB.setFont(numRowsLbl.getFont());
+        seatKindCB.setFont(numRowsLbl.getFont());
+
+        this.setLayout(new GridLayout(7, 1));
         this.add(errorMessageLbl);
         JPanel rowsPanel = new JPanel(new GridLayout(1, 2));
         rowsPanel.add(numRowsLbl);
@@ -80,19 +98,27 @@ public class SetupView extends JFrame implements ActionListener {
         playersPanel.add(numPlayersCB);
         this.add(playersPanel);
 
+        JPanel seatPanel = new JPanel(new GridLayout(1, 3));
+        seatPanel.add(seatLbl);
+        seatPanel.add(seatCB);
+        seatPanel.add(seatKindCB);
+        this.add(seatPanel);
+
+        numPlayersCB.addActionListener(this);
+        seatCB.addActionListener(this);
+        seatKindCB.addActionListener(this);
         submitButton.addActionListener(this);
         this.add(submitButton);
 
-        // Start the main application window --------------------------------
+        //show the screen in the main window
+        display();
+    }
 
-        /*
-         * Make sure the main window is appropriately sized for the widgets in
-         * it, that it exits this program when closed, and that it becomes
-         * visible to the user now
-         */
-        this.pack();
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        this.setVisible(true);
+    /**
+     * @post this screen is shown in the main window, with the numbers that were last entered still filled in
+     */
+    public void display() {
+        ConnectXWindow.show(this, "Connect X Setup", null);
     }
 
     @Override
@@ -114,6 +140,20 @@ public class SetupView extends JFrame implements ActionListener {
          */
         Object source = event.getSource();
 
+        //only the seats that will play can be picked
+        if (source.equals(numPlayersCB)) {
+            updateSeats();
+        }
+
+        //show the kind of player of the picked seat
+        if (source.equals(seatCB) && seatCB.getSelectedIndex() >= 0) {
+            seatKindCB.setSelectedItem(seatKinds[seatCB.getSelectedIndex()]);
+        }
+
+        if (source.equals(seatKindCB) && seatCB.getSelectedIndex() >= 0) {
+            seatKinds[seatCB.getSelectedIndex()] = seatKindCB.getItemAt(seatKindCB.getSelectedIndex());
+        }
+
         //is the source submit button
         if (source.equals(submitButton)) {
             errorMessageLbl.setText("");
@@ -145,7 +185,7 @@ public class SetupView extends JFrame implements ActionListener {
             numPlayers = numPlayersCB.getItemAt(numPlayersCB.getSelectedIndex());
 
             if (msg.equals("")) {
-                controller.processButtonClick(numRows, numCols, numPlayers, numWin);
+                controller.processButtonClick(numRows, numCols, numPlayers, numWin, Arrays.copyOf(seatKinds, numPlayers));
             } else {
                 errorMessageLbl.setText(msg);
             }
@@ -158,6 +198,19 @@ public class SetupView extends JFrame implements ActionListener {
         this.setCursor(Cursor.getDefaultCursor());
     }
 
+    /**
+     * @post seatCB holds the token of every seat up to the number of players, and the first seat is picked
+     */
+    private void updateSeats() {
+        int numPlayers = numPlayersCB.getItemAt(numPlayersCB.getSelectedIndex());
+
+        seatCB.removeAllItems();
+        for (int i = 0; i < numPlayers; i++) {
+            seatCB.addItem(ConnectXController.PLAYER_TOKENS[i]);
+        }
+        seatCB.setSelectedIndex(0);
+    }
+
     public void displayError(String msg) {
         errorMessageLbl.setText(msg);
     }
@@ -166,8 +219,4 @@ public class SetupView extends JFrame implements ActionListener {
         controller = c;
     }
 
-    public void closeScreen() {
-        this.dispose();
-    }
-
 }
\ No newline at end of file
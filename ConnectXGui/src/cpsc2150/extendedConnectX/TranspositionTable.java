@@ -0,0 +1,196 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size cache of search results keyed by position hash, shared by any number of
+ * search threads without locks.
+ *
+ * Every entry is two longs: the packed data and the key XORed with that data. A reader
+ * only accepts an entry if the two still XOR back to the key it is looking for, so an
+ * entry torn by two threads writing at the same time reads as a miss instead of as a
+ * wrong result.
+ *
+ * Entries live in buckets of BUCKET_SIZE slots. When a bucket is full, the entry left
+ * over from the oldest search is replaced first, and among entries of the same age the
+ * one searched to the shallowest depth is replaced.
+ *
+ * @invariant       keys.length = data.length AND
+ *                  keys.length is a power of 2 AND
+ *                  keys.length >= BUCKET_SIZE
+ */
+public class TranspositionTable {
+
+    public static final long MISS = 0;
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    public static final int NO_MOVE = -1;
+
+    public static final int BYTES_PER_ENTRY = 16;
+
+    private static final int BUCKET_SIZE = 4;
+
+    // Layout of a data long, from the lowest bit up
+    private static final int DEPTH_SHIFT = 32;
+    private static final int FLAG_SHIFT = 46;
+    private static final int MOVE_SHIFT = 48;
+    private static final int AGE_SHIFT = 56;
+    private static final long DEPTH_MASK = 0x3FFF;
+    private static final long FLAG_MASK = 0x3;
+    private static final long MOVE_MASK = 0xFF;
+    private static final long AGE_MASK = 0x7F;
+    private static final long SCORE_MASK = 0xFFFFFFFFL;
+    private static final long VALID = 1L << 63;
+
+    private final long [] keys;
+    private final long [] data;
+    private final int mask;
+    private volatile int age;
+
+    /**
+     * @param maxBytes      the most memory the entries may use.
+     * @pre                 maxBytes >= BUCKET_SIZE * BYTES_PER_ENTRY
+     * @post                [the table holds the largest power of 2 entries that fits in maxBytes]
+     */
+    public TranspositionTable(long maxBytes){
+
+        long entries = Long.highestOneBit(Math.max(maxBytes / BYTES_PER_ENTRY, BUCKET_SIZE));
+
+        entries = Math.min(entries, Integer.highestOneBit(Integer.MAX_VALUE));
+
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        mask = (int) entries - 1;
+
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier searches are replaced first.
+     *
+     * @post    age = (#age + 1) mod 128
+     */
+    public void newSearch(){ age = (int) ((age + 1) & AGE_MASK); }
+
+    /**
+     * Removes every entry.
+     *
+     * @post    [every probe misses until the next store]
+     */
+    public void clear(){
+
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+
+    }
+
+    /**
+     * @return      the number of entries the table can hold
+     */
+    public int capacity(){ return keys.length; }
+
+    /**
+     * Looks up key.
+     *
+     * @param key   the position hash
+     * @return      the packed entry for key, or MISS. Read it with score, depth, flag and move.
+     * @post        #table = table
+     */
+    public long probe(long key){
+
+        int bucket = (int) key & mask & -BUCKET_SIZE;
+
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++){
+
+            long d = data[i];
+
+            if ((d & VALID) != 0 && (keys[i] ^ d) == key) return d;
+
+        }
+
+        return MISS;
+
+    }
+
+    /**
+     * Stores a search result for key.
+     *
+     * @param key       the position hash
+     * @param score     the score that was found
+     * @param depth     how many plies deep the position was searched, at most DEPTH_MASK
+     * @param flag      EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param move      the best column found, or NO_MOVE
+     * @pre             0 <= depth AND -1 <= move < MAX_NUM_COLUMNS
+     * @post            [the entry for key is replaced, or the bucket's least useful entry is]
+     */
+    public void store(long key, int score, int depth, int flag, int move){
+
+        int bucket = (int) key & mask & -BUCKET_SIZE;
+        int currentAge = age;
+        int victim = bucket;
+        int victimRank = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++){
+
+            long d = data[i];
+
+            if ((d & VALID) == 0 || (keys[i] ^ d) == key){
+
+                victim = i;
+                break;
+
+            }
+
+            // Entries from older searches rank below every entry of this search,
+            // and within one age a shallower entry ranks lower
+            int entryAge = (int) ((d >>> AGE_SHIFT) & AGE_MASK);
+            int rank = (entryAge == currentAge ? (int) DEPTH_MASK + 1 : 0) + depth(d);
+
+            if (rank < victimRank){
+
+                victimRank = rank;
+                victim = i;
+
+            }
+
+        }
+
+        long d = VALID
+                | ((long) currentAge << AGE_SHIFT)
+                | (((long) (move + 1) & MOVE_MASK) << MOVE_SHIFT)
+                | (((long) flag & FLAG_MASK) << FLAG_SHIFT)
+                | (((long) Math.min(depth, (int) DEPTH_MASK)) << DEPTH_SHIFT)
+                | ((long) score & SCORE_MASK);
+
+        data[victim] = d;
+        keys[victim] = key ^ d;
+
+    }
+
+    /**
+     * @param entry     an entry returned by probe
+     * @return          the score of the entry
+     */
+    public static int score(long entry){ return (int) entry; }
+
+    /**
+     * @param entry     an entry returned by probe
+     * @return          the depth of the entry
+     */
+    public static int depth(long entry){ return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK); }
+
+    /**
+     * @param entry     an entry returned by probe
+     * @return          EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public static int flag(long entry){ return (int) ((entry >>> FLAG_SHIFT) & FLAG_MASK); }
+
+    /**
+     * @param entry     an entry returned by probe
+     * @return          the best column of the entry, or NO_MOVE
+     */
+    public static int move(long entry){ return (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK) - 1; }
+
+}
@@ -0,0 +1,92 @@
+package cpsc2150.extendedConnectX;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of game boards. Every (token, row, column) triple up to
+ * MAX_PLAYERS x MAX_NUM_ROWS x MAX_NUM_COLUMNS has its own 64 bit key, and the hash of a
+ * board is the XOR of the keys of every placed token. Placing or removing a token flips
+ * its key in and out of the hash in O(1).
+ *
+ * The keys come from a fixed seed so that a position hashes to the same value in every
+ * run, which lets hashes be stored in files.
+ *
+ * The cell keys do not depend on the size of the board, so the same tokens on boards of
+ * different sizes hash the same, and every empty board hashes to 0. A cache that is shared
+ * between board settings mixes configKey into its keys.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x436F6E6E65637458L;
+
+    private static final long [] CELL_KEYS = new long[ConnectXController.MAX_PLAYERS * IGameBoard.MAX_NUM_ROWS * IGameBoard.MAX_NUM_COLUMNS];
+    private static final long [] SIDE_KEYS = new long[ConnectXController.MAX_PLAYERS];
+
+    static {
+
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = IGameBoard.START; i < CELL_KEYS.length; i++) CELL_KEYS[i] = random.nextLong();
+
+        for (int i = IGameBoard.START; i < SIDE_KEYS.length; i++) SIDE_KEYS[i] = random.nextLong();
+
+    }
+
+    private Zobrist(){}
+
+    /**
+     * @param p     a player token
+     * @param r     row of the token
+     * @param c     column of the token
+     * @return      the key of token p at <r, c>
+     * @pre         MIN_ROW <= r < MAX_NUM_ROWS AND MIN_COLUMN <= c < MAX_NUM_COLUMNS
+     */
+    static long key(char p, int r, int c){
+
+        return CELL_KEYS[(tokenIndex(p) * IGameBoard.MAX_NUM_ROWS + r) * IGameBoard.MAX_NUM_COLUMNS + c];
+
+    }
+
+    /**
+     * Mixes the settings into one key with the finalizer of SplitMix64, so settings that are
+     * close together get unrelated keys.
+     *
+     * @return      a key for the board settings, for caches that mix it into the board hash
+     */
+    static long configKey(int numRows, int numColumns, int numToWin){
+
+        long z = SEED + (((long) numRows << 32) | ((long) numColumns << 16) | numToWin);
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+
+    }
+
+    /**
+     * @param p     a player token
+     * @return      a key for p being the player to move, for searches that mix it into the board hash
+     */
+    static long sideKey(char p){ return SIDE_KEYS[tokenIndex(p)]; }
+
+    /**
+     * Returns the index of p in ConnectXController.PLAYER_TOKENS. A token that is not one
+     * of the seat tokens is folded onto one of the indexes, which only costs hash quality.
+     *
+     * @param p     a player token
+     * @return      0 <= tokenIndex < MAX_PLAYERS
+     */
+    static int tokenIndex(char p){
+
+        for (int i = IGameBoard.START; i < ConnectXController.PLAYER_TOKENS.length; i++){
+
+            if (ConnectXController.PLAYER_TOKENS[i] == p) return i;
+
+        }
+
+        return p % ConnectXController.MAX_PLAYERS;
+
+    }
+
+}